@@ -19,8 +19,7 @@
 import controller.MenuController;
 import controller.MtdController;
 import controller.SettingsController;
-import io.kubernetes.client.openapi.Configuration;
-import io.kubernetes.client.util.Config;
+import model.kubernetes.ApiClientFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -29,7 +28,7 @@ public class MtdMain {
 
     public static void main(String[] args) {
         try {
-            Configuration.setDefaultApiClient(Config.defaultClient());
+            new ApiClientFactory().install();
         } catch (IOException e) {
             e.printStackTrace();
         }
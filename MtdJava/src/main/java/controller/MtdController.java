@@ -22,7 +22,16 @@ import controller.algs.IMtdAlg;
 import controller.algs.MtdRandomV3;
 import leaderelection.Candidate;
 import leaderelection.Election;
+import leaderelection.LeaderLease;
+import leaderelection.LoadEstimator;
+import leaderelection.LoadProvider;
+import leaderelection.ScoringModel;
+import model.DeploymentGroup;
+import model.kubernetes.ApiClientFactory;
+import model.kubernetes.ApiRateLimiter;
+import model.kubernetes.ClusterCache;
 import model.kubernetes.Deployment;
+import model.kubernetes.DeploymentDeleter;
 import model.kubernetes.IDeployment;
 import model.kubernetes.IService;
 import model.kubernetes.Service;
@@ -34,13 +43,47 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MtdController {
+    private static final String NAMESPACE = "default";
+    private static final long CLUSTER_CACHE_SYNC_MILLIS = 30_000;
+
     SettingsController settingsController;
     MtdView mtdView = new MtdView();
+    private boolean clusterCacheStarted = false;
+    // Limits the requests of all API clients, null if they are not limited.
+    private final ApiRateLimiter apiRateLimiter;
 
     public MtdController(SettingsController settingsController) {
         this.settingsController = settingsController;
+        this.apiRateLimiter = settingsController.createApiRateLimiter();
+        installApiClient();
+    }
+
+    /**
+     * Installs an API client with the connection settings as the default API client, which the model uses for its
+     * requests. Keeps the current default API client if the cluster configuration cannot be loaded.
+     */
+    private void installApiClient() {
+        try {
+            createApiClientFactory().install();
+        } catch (IOException e) {
+            mtdView.printError("Could not create the API client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a factory of API clients with the connection settings, sharing the rate limit of the controller.
+     */
+    private ApiClientFactory createApiClientFactory() {
+        ApiClientFactory apiClientFactory = settingsController.createApiClientFactory();
+        apiClientFactory.setRateLimiter(apiRateLimiter);
+        return apiClientFactory;
     }
 
     /**
@@ -57,18 +100,7 @@ public class MtdController {
      */
     public void runMtd(int numRounds) {
         try {
-            if (settingsController.isLoadBalancing()) {
-                IService service = new Service(new File(settingsController.getServiceFileName()));
-                service.apply();
-            }
-            List<IDeployment> deploymentList = new ArrayList<>();
-            for (String filename : settingsController.getDeploymentFileNames()) {
-                IDeployment deployment = new Deployment(new File(filename));
-                deploymentList.add(deployment);
-            }
-            // This is where the algorithm is selected. Change the class to V3 or V2 before compiling.
-            // Or implement alg selection from settings.
-            IMtdAlg alg = new MtdRandomV3(deploymentList, 5000);
+            IMtdAlg alg = createMtdAlg();
             alg.run(numRounds);
         } catch (IOException e) {
             mtdView.printError(String.format("Could not find Deployment file."));
@@ -79,26 +111,229 @@ public class MtdController {
         }
     }
 
+    /**
+     * Applies the Service if load balancing is enabled, and creates the MTD algorithm for the configured deployments.
+     *
+     * @return the created MTD algorithm.
+     * @throws IOException Throws if a Service or Deployment file could not be found.
+     * @throws ApplyException Throws if the Service could not be applied.
+     */
+    private IMtdAlg createMtdAlg() throws IOException, ApplyException {
+        DeploymentGroup allDeployments = new DeploymentGroup();
+        allDeployments.setDeploymentFileNames(settingsController.getDeploymentFileNames());
+        return createMtdAlg(allDeployments);
+    }
+
+    /**
+     * Applies the Service if load balancing is enabled, and creates the MTD algorithm for the deployments of a group.
+     *
+     * @param group the deployment group to be moved.
+     * @return the created MTD algorithm.
+     * @throws IOException Throws if a Service or Deployment file could not be found.
+     * @throws ApplyException Throws if the Service could not be applied.
+     */
+    private IMtdAlg createMtdAlg(DeploymentGroup group) throws IOException, ApplyException {
+        startClusterCache();
+        IService service = null;
+        if (settingsController.isLoadBalancing()) {
+            service = new Service(new File(settingsController.getServiceFileName()));
+            service.apply();
+        }
+        List<IDeployment> deploymentList = new ArrayList<>();
+        for (String filename : group.getDeploymentFileNames()) {
+            IDeployment deployment = new Deployment(new File(filename));
+            deploymentList.add(deployment);
+        }
+        // This is where the algorithm is selected. Change the class to V3 or V2 before compiling.
+        // Or implement alg selection from settings.
+        MtdRandomV3 alg = new MtdRandomV3(deploymentList, 5000, group.getLabelKey());
+        alg.setPodReadyTimeoutMillis(settingsController.getPodReadyTimeoutMillis());
+        alg.setDeploymentDeleter(new DeploymentDeleter(settingsController.getDeleteParallelism(),
+                settingsController.getDeleteGracePeriodSeconds()));
+        if (service != null) {
+            alg.setService(service.getName(), settingsController.getEndpointReadyTimeoutMillis());
+        }
+        return alg;
+    }
+
+    /**
+     * Starts the shared cluster cache once if it is enabled, so the MTD algorithms read the cluster state from memory.
+     * If the cache cannot be started, the cluster state is requested from the API server as before.
+     */
+    private synchronized void startClusterCache() {
+        if (clusterCacheStarted || !settingsController.isClusterCacheEnabled()) {
+            return;
+        }
+        clusterCacheStarted = true;
+        try {
+            ClusterCache.startShared(createApiClientFactory().createWatchClient(), NAMESPACE,
+                    CLUSTER_CACHE_SYNC_MILLIS);
+        } catch (IOException | IllegalStateException e) {
+            mtdView.printError("Could not start the cluster cache: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Creates a candidate representation which participates in election indefinitely.
+     * If the leader lease is enabled, an elected candidate keeps moving the target for the whole lease term, while the
+     * other candidates wait for the lease to be released before running the next election.
+     * If pipelined elections are enabled and the lease is not, an elected candidate hands its move to a separate thread
+     * and takes part in the next election right away, so the next leader is ready when the move finishes.
+     * The candidate's election metrics are printed after every configured number of elections. The load reported in
+     * the elections comes from the configured load provider, smoothed over its recent samples, and the candidates are
+     * ranked by the configured weights of the measured resources.
+     * If deployment groups are configured, the candidate takes part in a separate election for each group instead.
+     * Elections wait for the live candidates only, as long as the configured quorum of them is alive, so crashed
+     * candidates do not stop MTD and the ensemble can be scaled.
      *
-     * @param ensembleSize the number of candidates in the ensemble.
+     * @param ensembleSize the number of candidates in the ensemble, a majority of them is the default quorum.
      * @param randomWeight the weight of the random component in the election.
      */
     public void runMtdAsCandidate(int ensembleSize, double randomWeight) {
         try {
-            Candidate candidate = new Candidate(ensembleSize);
-            while (true) {
+            LoadProvider loadProvider = new LoadEstimator(
+                    LoadProvider.create(settingsController.getLoadProvider(), System.getenv("MY_NODE_NAME")),
+                    settingsController.getLoadWindowSize(), settingsController.getLoadSmoothing())
+                    .start(settingsController.getLoadSampleMillis());
+            Candidate candidate = new Candidate(ensembleSize, loadProvider);
+            if (settingsController.getElectionQuorum() > 0) { //otherwise the candidate's default, a majority
+                candidate.setElectionQuorum(settingsController.getElectionQuorum());
+            }
+            candidate.setScoringModel(ScoringModel.fromSettings(settingsController.getScoringWeights()));
+            if (!settingsController.getDeploymentGroups().isEmpty()) {
+                runMtdAsGroupCandidate(candidate, randomWeight);
+                return;
+            }
+            int metricsInterval = settingsController.getElectionMetricsInterval();
+            boolean pipelined = settingsController.isPipelinedElections() && !settingsController.isLeaderLeaseEnabled();
+            for (long elections = 1; ; elections++) {
                 System.out.println("Candidate running for leader (again)...");
-                boolean elected = candidate.runElection(randomWeight);
-                if (elected) {
-                    Election.expPrintLeadStart();
-                    runMtd(1);
-                    Election.expPrintLeadEnd();
+                try {
+                    if (pipelined) {
+                        candidate.runPipelinedElection(randomWeight, this::runMtdAsLeader);
+                    } else {
+                        boolean elected = candidate.runElection(randomWeight);
+                        if (elected && settingsController.isLeaderLeaseEnabled()) {
+                            runMtdForLeaseTerm(candidate);
+                        } else if (elected) {
+                            runMtdAsLeader();
+                        } else if (settingsController.isLeaderLeaseEnabled()) {
+                            candidate.awaitLeaseRelease();
+                        }
+                    }
+                } catch (KeeperException e) {
+                    candidate.recoverSession(e); //rethrows anything but session failures
+                }
+                if (metricsInterval > 0 && elections % metricsInterval == 0) {
+                    candidate.exportElectionMetrics().forEach(System.out::println);
+                    if (apiRateLimiter != null) {
+                        apiRateLimiter.export(Election.getHostName()).forEach(System.out::println);
+                    }
                 }
             }
         } catch (IOException | InterruptedException | KeeperException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Participates in the elections of all deployment groups, each in its own thread, and moves the targets of every
+     * group the candidate is elected for. The groups are moved in parallel, by the same or by different candidates.
+     * Every group the candidate leads increases the load it reports in the other groups' elections, so leaderships
+     * spread across the candidates.
+     *
+     * @param candidate the candidate participating in the elections.
+     * @param randomWeight the weight of the random component in the elections.
+     * @throws InterruptedException
+     */
+    private void runMtdAsGroupCandidate(Candidate candidate, double randomWeight) throws InterruptedException {
+        List<DeploymentGroup> groups = settingsController.getDeploymentGroups();
+        candidate.setGroupLoadPenalty(settingsController.getGroupLeaderLoadPenalty());
+        ExecutorService executor = Executors.newFixedThreadPool(groups.size());
+        List<Future<Void>> groupLoops = new ArrayList<>();
+        for (DeploymentGroup group : groups) {
+            Callable<Void> groupLoop = () -> {
+                while (true) {
+                    if (candidate.runElection(randomWeight, group.getName())) {
+                        candidate.leadGroup(() -> runMtdAsGroupLeader(group));
+                    }
+                }
+            };
+            groupLoops.add(executor.submit(groupLoop));
+        }
+        try {
+            for (Future<Void> groupLoop : groupLoops) {
+                groupLoop.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Moves the targets of a deployment group once as its elected leader.
+     *
+     * @param group the deployment group to be moved.
+     */
+    private void runMtdAsGroupLeader(DeploymentGroup group) {
+        Election.expPrintLeadStart(group.getName());
+        try {
+            createMtdAlg(group).run(1);
+        } catch (IOException e) {
+            mtdView.printError(String.format("Could not find Deployment file."));
+        } catch (ApplyException e) {
+            mtdView.printError("Could not apply Service to cluster.");
+        } finally {
+            Election.expPrintLeadEnd(group.getName());
+        }
+    }
+
+    /**
+     * Moves the target once as the elected leader.
+     */
+    private void runMtdAsLeader() {
+        Election.expPrintLeadStart();
+        runMtd(1);
+        Election.expPrintLeadEnd();
+    }
+
+    /**
+     * Acquires the leader lease and moves the target back to back until the lease term is over, the lease is lost or
+     * the load of the current node crosses the configured threshold. Releases the lease afterwards.
+     *
+     * @param candidate the elected candidate.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private void runMtdForLeaseTerm(Candidate candidate) throws InterruptedException, KeeperException {
+        LeaderLease lease = candidate.acquireLease(settingsController.getLeaseTermMoves(),
+                settingsController.getLeaseTermMillis());
+        Election.expPrintLeadStart();
+        try {
+            IMtdAlg alg = createMtdAlg();
+            while (!lease.isExpired()) {
+                alg.run(1);
+                lease.recordMove();
+                double load = candidate.measureLoad();
+                if (load > settingsController.getLeaseLoadThreshold()) {
+                    System.out.printf("Load %f crossed the threshold, ending the lease term early.%n", load);
+                    break;
+                }
+            }
+            if (lease.isLost()) {
+                System.out.println("Lost the lease, ending the lease term early.");
+            }
+        } catch (IOException e) {
+            mtdView.printError(String.format("Could not find Deployment file."));
+        } catch (ApplyException e) {
+            mtdView.printError("Could not apply Service to cluster.");
+        } finally {
+            Election.expPrintLeadEnd();
+            lease.release();
+        }
+    }
 }
@@ -20,12 +20,16 @@ package controller;
 
 import controller.yaml.IYaml;
 import controller.yaml.YamlFactory;
+import model.DeploymentGroup;
 import model.Settings;
 import model.exception.InvalidFileNameException;
+import model.kubernetes.ApiClientFactory;
+import model.kubernetes.ApiRateLimiter;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class SettingsController {
     private Settings settings = new Settings();
@@ -110,4 +114,108 @@ public class SettingsController {
     public void addDeploymentFilename(String fileName) {
         settings.getDeploymentFileNames().add(fileName);
     }
+
+    public boolean isLeaderLeaseEnabled() {
+        return settings.isLeaderLeaseEnabled();
+    }
+
+    public int getLeaseTermMoves() {
+        return settings.getLeaseTermMoves();
+    }
+
+    public long getLeaseTermMillis() {
+        return settings.getLeaseTermMillis();
+    }
+
+    public double getLeaseLoadThreshold() {
+        return settings.getLeaseLoadThreshold();
+    }
+
+    public boolean isPipelinedElections() {
+        return settings.isPipelinedElections();
+    }
+
+    public List<DeploymentGroup> getDeploymentGroups() {
+        return settings.getDeploymentGroups();
+    }
+
+    public double getGroupLeaderLoadPenalty() {
+        return settings.getGroupLeaderLoadPenalty();
+    }
+
+    public int getElectionMetricsInterval() {
+        return settings.getElectionMetricsInterval();
+    }
+
+    public int getElectionQuorum() {
+        return settings.getElectionQuorum();
+    }
+
+    public String getLoadProvider() {
+        return settings.getLoadProvider();
+    }
+
+    public double getLoadSmoothing() {
+        return settings.getLoadSmoothing();
+    }
+
+    public int getLoadWindowSize() {
+        return settings.getLoadWindowSize();
+    }
+
+    public long getLoadSampleMillis() {
+        return settings.getLoadSampleMillis();
+    }
+
+    public Map<String, Double> getScoringWeights() {
+        return settings.getScoringWeights();
+    }
+
+    public boolean isClusterCacheEnabled() {
+        return settings.isClusterCacheEnabled();
+    }
+
+    public long getPodReadyTimeoutMillis() {
+        return settings.getPodReadyTimeoutMillis();
+    }
+
+    public long getEndpointReadyTimeoutMillis() {
+        return settings.getEndpointReadyTimeoutMillis();
+    }
+
+    public int getDeleteParallelism() {
+        return settings.getDeleteParallelism();
+    }
+
+    public int getDeleteGracePeriodSeconds() {
+        return settings.getDeleteGracePeriodSeconds();
+    }
+
+    /**
+     * Creates a factory of API clients with the connection settings
+     * @return The API client factory
+     */
+    public ApiClientFactory createApiClientFactory() {
+        ApiClientFactory apiClientFactory = new ApiClientFactory();
+        apiClientFactory.setPoolSize(settings.getApiPoolSize());
+        apiClientFactory.setKeepAliveMillis(settings.getApiKeepAliveMillis());
+        apiClientFactory.setConnectTimeoutMillis(settings.getApiConnectTimeoutMillis());
+        apiClientFactory.setReadTimeoutMillis(settings.getApiReadTimeoutMillis());
+        apiClientFactory.setCallTimeoutMillis(settings.getApiCallTimeoutMillis());
+        apiClientFactory.setWatchTimeoutMillis(settings.getApiWatchTimeoutMillis());
+        apiClientFactory.setHttp2Enabled(settings.isApiHttp2Enabled());
+        apiClientFactory.setGzipEnabled(settings.isApiGzipEnabled());
+        return apiClientFactory;
+    }
+
+    /**
+     * Creates a limiter of the requests to the API server
+     * @return The rate limiter, or null if the rate is not limited
+     */
+    public ApiRateLimiter createApiRateLimiter() {
+        if (settings.getApiRateLimit() <= 0) {
+            return null;
+        }
+        return new ApiRateLimiter(settings.getApiRateLimit(), settings.getApiRateBurst());
+    }
 }
@@ -24,6 +24,7 @@ import model.kubernetes.exception.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 /**
  * This is a rewritten version of V1 to make it more comprehensible.
  */
@@ -37,7 +38,8 @@ public class MtdRandomV2 implements IMtdAlg {
     private INode currentNode = null;
     private IDeployment currentDeployment = null;
     private List<IDeployment> deployments;
-
+    // Moves the active label between the nodes.
+    private final NodeLabelReconciler labelReconciler = new NodeLabelReconciler(LABEL_KEY);
 
 
     /**
@@ -86,19 +88,10 @@ public class MtdRandomV2 implements IMtdAlg {
         while (i < nSwaps) {
             try {
                 // Delete active labels if exists.
-                List<INode> nodeList = NodeTools.getWorkerNodes();
-                for (INode node : nodeList) {
-                    if (node.getLabels().containsKey(LABEL_KEY)) {
-                        System.out.println("Deleting label from: " + node.getName());
-                        node.deleteLabel(LABEL_KEY);
-                    }
-                }
+                labelReconciler.reconcile(Set.of(), null);
             }
             catch (NodeNotFoundException | NodeLabelException ignored) {
             }
-            catch (IllegalArgumentException e) {
-                throw new RuntimeException("Not enough worker nodes.");
-            }
             try {
                 // Get all available worker nodes.
                 List<INode> nodeList = NodeTools.getWorkerNodes();
@@ -23,8 +23,13 @@ import model.kubernetes.*;
 import model.kubernetes.exception.*;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The best working version of our MTD algorithms. Has better handling of the integrated load-balancer than V1 and V2.
@@ -32,14 +37,28 @@ import java.util.Random;
 public class MtdRandomV3 implements IMtdAlg {
 
     private int timeBetweenSwap = 5000; // todo Make timeBetweenSwap randomized.
-    // Label key for the active k8 node
+    // Default label key for the active k8 node
     private static final String LABEL_KEY = "mtd/node";
     // Label value for the active K8 node.
     private static final String LABEL_VALUE = "active";
     private static final String NAMESPACE = "default";
+    public static final long DEFAULT_POD_READY_TIMEOUT_MILLIS = 15_000;
+    public static final long DEFAULT_ENDPOINT_READY_TIMEOUT_MILLIS = 10_000;
     private INode currentNode = null;
     private IDeployment currentDeployment = null;
     private List<IDeployment> deployments;
+    // Label key for the active k8 node of these deployments
+    private final String labelKey;
+    // Maximum time to wait for the pod of a new deployment to become ready.
+    private long podReadyTimeoutMillis = DEFAULT_POD_READY_TIMEOUT_MILLIS;
+    // Name of the load balancing Service of the deployments, null if there is none.
+    private String serviceName = null;
+    // Maximum time to wait for the pod of a new deployment to become a ready endpoint of the Service.
+    private long endpointReadyTimeoutMillis = DEFAULT_ENDPOINT_READY_TIMEOUT_MILLIS;
+    // Deletes the previous deployments after a move.
+    private DeploymentDeleter deploymentDeleter = new DeploymentDeleter(DeploymentDeleter.DEFAULT_PARALLELISM, -1);
+    // Moves the active label between the nodes.
+    private final NodeLabelReconciler labelReconciler;
 
 
     /**
@@ -47,8 +66,51 @@ public class MtdRandomV3 implements IMtdAlg {
      * @param timeBetweenSwap The time the MTD should wait before swapping to a different node.
      */
     public MtdRandomV3(List<IDeployment> deployments, int timeBetweenSwap) {
+        this(deployments, timeBetweenSwap, LABEL_KEY);
+    }
+
+    /**
+     * @param deployments     A list of deployments that will be randomized during the MTD execution.
+     * @param timeBetweenSwap The time the MTD should wait before swapping to a different node.
+     * @param labelKey        The label key marking the active node, must match the node selector of the deployments.
+     */
+    public MtdRandomV3(List<IDeployment> deployments, int timeBetweenSwap, String labelKey) {
         this.timeBetweenSwap = timeBetweenSwap;
         this.deployments = deployments;
+        this.labelKey = labelKey;
+        this.labelReconciler = new NodeLabelReconciler(labelKey);
+    }
+
+    /**
+     * Sets the maximum time to wait for the pod of a new deployment to become ready before keeping the previous
+     * deployments.
+     *
+     * @param podReadyTimeoutMillis The timeout in milliseconds.
+     */
+    public void setPodReadyTimeoutMillis(long podReadyTimeoutMillis) {
+        this.podReadyTimeoutMillis = podReadyTimeoutMillis;
+    }
+
+    /**
+     * Sets the load balancing Service of the deployments. Previous deployments are only deleted once the pod of a new
+     * deployment is a ready endpoint of the Service, so the Service does not send requests to deleted pods.
+     *
+     * @param serviceName The name of the Service.
+     * @param endpointReadyTimeoutMillis The maximum time to wait for the new pod to become a ready endpoint in
+     *                                   milliseconds.
+     */
+    public void setService(String serviceName, long endpointReadyTimeoutMillis) {
+        this.serviceName = serviceName;
+        this.endpointReadyTimeoutMillis = endpointReadyTimeoutMillis;
+    }
+
+    /**
+     * Sets the deleter of the previous deployments after a move.
+     *
+     * @param deploymentDeleter The deployment deleter.
+     */
+    public void setDeploymentDeleter(DeploymentDeleter deploymentDeleter) {
+        this.deploymentDeleter = deploymentDeleter;
     }
 
     /**
@@ -99,51 +161,38 @@ public class MtdRandomV3 implements IMtdAlg {
     }
 
     /**
-     * Creates and returns a list of active deployments related to the deployments of this MtdRandomV3 object.
+     * Finds the active deployments related to the deployments of this MtdRandomV3 object in the background, with the
+     * lookups of the deployments running in parallel.
      *
-     * @return the created list of deployments.
+     * @return future of the list of deployments.
      */
-    private List<IDeployment> getPreviousDeployments() {
-        List<IDeployment> previousDeployments = new ArrayList<>();
-        List<String> uniqueDeploymentNames = new ArrayList<>();
-
-        try {
-            for (IDeployment deployment : deployments) {
-                for (IDeployment relatedDeployment: deployment.getRelatedDeployments(NAMESPACE)) {
-                    if (!uniqueDeploymentNames.contains(relatedDeployment.getName())) {
-                        uniqueDeploymentNames.add(relatedDeployment.getName());
-                        previousDeployments.add(relatedDeployment);
-                    }
+    private CompletableFuture<List<IDeployment>> getPreviousDeploymentsAsync() {
+        List<CompletableFuture<List<IDeployment>>> relatedDeployments = new ArrayList<>();
+        for (IDeployment deployment : deployments) {
+            relatedDeployments.add(deployment.getRelatedDeploymentsAsync(NAMESPACE));
+        }
+        return CompletableFuture.allOf(relatedDeployments.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<String, IDeployment> previousDeployments = new LinkedHashMap<>();
+            for (CompletableFuture<List<IDeployment>> related : relatedDeployments) {
+                for (IDeployment relatedDeployment : related.join()) {
+                    previousDeployments.putIfAbsent(relatedDeployment.getName(), relatedDeployment);
                 }
             }
-        } catch (DeploymentNotFoundException | KubectlException e) {
-            throw new RuntimeException(e);
-        }
-
-        return previousDeployments;
+            return new ArrayList<>(previousDeployments.values());
+        });
     }
 
     /**
-     * Delete "mtd/node" label from every worker node. Return a list of nodes which had a label.
+     * Find the nodes with the label key using a single label selector list.
      *
-     * @return a list of nodes which had a label prior to the execution of this function.
+     * @return a list of nodes which have a label, empty if they could not be listed.
      */
-    private List<INode> cleanUpOldLabels() {
-        List<INode> nodesWithLabels = new ArrayList<>();
+    private List<INode> getLabelledNodes() {
         try {
-            // Delete old labels where they exist.
-            for (INode node : NodeTools.getWorkerNodes()) {
-                if (node.getLabels().containsKey(LABEL_KEY)) {
-                    System.out.println("Deleting label from: " + node.getName());
-                    node.deleteLabel(LABEL_KEY);
-                    nodesWithLabels.add(node);
-                }
-            }
-        } catch (NodeNotFoundException | NodeLabelException ignored) {
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Not enough worker nodes.");
+            return labelReconciler.getLabelledNodes();
+        } catch (NodeNotFoundException e) {
+            return new ArrayList<>();
         }
-        return nodesWithLabels;
     }
 
     /**
@@ -152,8 +201,9 @@ public class MtdRandomV3 implements IMtdAlg {
     private void moveTarget() {
         System.out.println("\n============= Moving the target ============");
 
-        List<INode> oldNodes = cleanUpOldLabels();
-        List<IDeployment> previousDeployments = getPreviousDeployments();
+        // The previous deployments are looked up while the active label moves.
+        CompletableFuture<List<IDeployment>> previousDeploymentsFuture = getPreviousDeploymentsAsync();
+        List<INode> oldNodes = getLabelledNodes();
 
         try {
             //1. choose new node, ignoring old nodes if possible
@@ -173,7 +223,11 @@ public class MtdRandomV3 implements IMtdAlg {
             // Set new current node.
             currentNode = nodeList.get(randIntNode);
             System.out.println("Randomly selected node: " + currentNode.getName() + ", adding active label.");
-            currentNode.addLabel(LABEL_KEY, LABEL_VALUE);
+            // Move the label from the old nodes to the new node, patching only the nodes which change.
+            labelReconciler.reconcile(oldNodes, Set.of(currentNode.getName()), LABEL_VALUE);
+
+            // The new deployment must not be among the previous deployments, so they are known before applying it.
+            List<IDeployment> previousDeployments = previousDeploymentsFuture.join();
 
             //2. choose deployment randomly and apply it with unique appendix
             // Choose a random deployment, can select same again
@@ -183,48 +237,39 @@ public class MtdRandomV3 implements IMtdAlg {
             System.out.println("Randomly selected Deployment: " + currentDeployment.getFileName());
             // Start a second pod on the new currentNode
             // Deploy with unique UUID attached to deployment name to distinguish deployments
-            String deploymentId = currentDeployment.applyUnique();
+            currentDeployment.applyUnique();
             System.out.println("Applying deployment with name: " + currentDeployment.getName());
 
-            //3. check if the deployment is running
-            // Wait for new pod to run and then wait a bit more for load balancer to catch up.
-            // Find if correct pod is running.
-            System.out.println("Trying to find the new pod, not waiting infinitely...");
-
-            int numNewPodChecks = 15;
-            for (int i = 0; i < numNewPodChecks; i++) {
-                boolean podDiscovered = false;
-                //Refresh node
-                currentNode = new Node(currentNode.getName());
-                //Check if pod from the latest deployment is running on the current node
-                for (IPod pod: currentNode.getPods()) {
-                    if (pod.getName().contains(deploymentId)) {
-                        podDiscovered = pod.getPhase().equalsIgnoreCase("running");
-                    }
+            //3. wait for the pod of the new deployment to become ready
+            System.out.println("Waiting for the new pod to become ready...");
+            try {
+                IPod newPod = currentDeployment.awaitReadyPod(podReadyTimeoutMillis).get();
+                System.out.println("Pod " + newPod.getName() + " is ready on " + newPod.getNodeName() + "!");
+                // Wait for the load balancer to send traffic to the new pod.
+                if (serviceName != null) {
+                    System.out.println("Waiting for the pod to be a ready endpoint of " + serviceName + "...");
+                    new EndpointReadinessGate(NAMESPACE)
+                            .awaitReadyEndpoint(serviceName, newPod.getName(), endpointReadyTimeoutMillis).get();
                 }
-                if (podDiscovered) {
-                    System.out.println("Pod found! Deleting previous deployments.");
-                    // Waiting for load balancer to catch up.
-                    Thread.sleep(1000);
-                    //4. delete the previous deployments
-                    for (IDeployment prevDeployment: previousDeployments) {
-                        prevDeployment.delete();
+                System.out.println("Deleting previous deployments.");
+                //4. delete the previous deployments, the next move does not wait for their pods to terminate
+                deploymentDeleter.deleteAll(previousDeployments).thenAccept(outcomes -> {
+                    for (DeploymentDeleter.Outcome outcome : outcomes) {
+                        if (!outcome.isDeleted()) {
+                            System.out.println("Could not delete previous deployment " + outcome);
+                        }
                     }
-                    break;
-                } else if (i < numNewPodChecks - 1) {
-                    System.out.println("Did not find new pod, waiting 1 second.");
-                    Thread.sleep(1000);
-                }
+                });
+            } catch (ExecutionException e) {
+                System.out.println("New pod did not become ready, keeping previous deployments: "
+                        + e.getCause().getMessage());
             }
 
             System.out.println("============= Target moving done ============\n");
 
 
-        } catch (NodeNotFoundException | ApplyException | NodeLabelException | PodNotFoundException |
-                 InterruptedException e) {
+        } catch (NodeNotFoundException | ApplyException | NodeLabelException | InterruptedException e) {
             e.printStackTrace();
-        } catch (DeploymentDeleteException e) {
-            throw new RuntimeException(e);
         }
     }
 
@@ -256,16 +301,8 @@ public class MtdRandomV3 implements IMtdAlg {
         }
         try {
             // Delete old labels if exists.
-            List<INode> nodeList = NodeTools.getWorkerNodes();
-            for (INode node : nodeList) {
-                if (node.getLabels().containsKey(LABEL_KEY)) {
-                    System.out.println("Deleting label from: " + node.getName());
-                    node.deleteLabel(LABEL_KEY);
-                }
-            }
+            labelReconciler.reconcile(Set.of(), null);
         } catch (NodeNotFoundException | NodeLabelException ignored) {
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Not enough worker nodes.");
         }
 
         // Make it loop infinitely if nSwaps = 0.
@@ -297,7 +334,7 @@ public class MtdRandomV3 implements IMtdAlg {
                 currentNode = nodeList.get(randIntNode);
 
                 System.out.println("Randomly selected node: " + currentNode.getName() + ", adding active label.");
-                currentNode.addLabel(LABEL_KEY, LABEL_VALUE);
+                currentNode.addLabel(labelKey, LABEL_VALUE);
                 // Choose a random deployment, can select same again
                 int randIntDeployment = random.nextInt(deployments.size());
 
@@ -325,7 +362,7 @@ public class MtdRandomV3 implements IMtdAlg {
                 }
                 // Pod is running. Label no longer needed, delete it.
                 System.out.println("Deleting active label on node: " + currentNode.getName());
-                currentNode.deleteLabel(LABEL_KEY);
+                currentNode.deleteLabel(labelKey);
 
                 // Waiting for load balancer to catch up.
                 Thread.sleep(1000);
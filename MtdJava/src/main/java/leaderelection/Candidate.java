@@ -4,14 +4,26 @@ import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.ZooKeeper;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class representing a candidate which connects to the local ZooKeeper server and participates in elections.
  */
 public class Candidate {
     private final ZKConnection zkConnection;
-    private final ZooKeeper zooKeeper;
+    private volatile ZooKeeper zooKeeper;
     private final int ensembleSize;
+    private final CandidateIdentity candidateIdentity;
+    private final ElectionMetrics electionMetrics = new ElectionMetrics();
+    private final ExecutorService mover = Executors.newSingleThreadExecutor();
+    private final CandidateIdentity electionIdentity;
+    private final AtomicInteger ledGroups = new AtomicInteger();
+    private volatile double groupLoadPenalty = 0.0;
+    private volatile int electionQuorum;
+    private volatile ScoringModel scoringModel = ScoringModel.CPU_ONLY;
 
     /**
      * Constructor for Candidate objects. Establishes a connection to the local ZooKeeper server.
@@ -21,10 +33,109 @@ public class Candidate {
      * @throws InterruptedException
      */
     public Candidate(int ensembleSize) throws IOException, InterruptedException {
-        zkConnection = new ZKConnection();
-        String zkFQDN = getZKFQDN();
-        zooKeeper = zkConnection.connect(zkFQDN);
+        this(connectToLocalServer(), ensembleSize, CandidateIdentity.fromEnvironment());
+    }
+
+    /**
+     * Constructor for Candidate objects reporting the load of the given load provider. Establishes a connection to the
+     * local ZooKeeper server.
+     *
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param loadProvider the source of the load reported in heuristic elections.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public Candidate(int ensembleSize, LoadProvider loadProvider) throws IOException, InterruptedException {
+        this(connectToLocalServer(), ensembleSize, CandidateIdentity.fromEnvironment(loadProvider));
+    }
+
+    /**
+     * Constructor for Candidate objects with an established connection. If the session of the connection expires or
+     * loses its connection, the candidate replaces it and keeps participating.
+     *
+     * @param zkConnection a connection to a ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     */
+    public Candidate(ZKConnection zkConnection, int ensembleSize, CandidateIdentity candidateIdentity) {
+        this(zkConnection, zkConnection.getZooKeeper(), ensembleSize, candidateIdentity);
+    }
+
+    /**
+     * Constructor for Candidate objects with an existing ZooKeeper session and an injected identity, used to run
+     * candidates outside of a Kubernetes pod.
+     *
+     * @param zooKeeper a connected ZooKeeper client.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     */
+    public Candidate(ZooKeeper zooKeeper, int ensembleSize, CandidateIdentity candidateIdentity) {
+        this(null, zooKeeper, ensembleSize, candidateIdentity);
+    }
+
+    private Candidate(ZKConnection zkConnection, ZooKeeper zooKeeper, int ensembleSize, CandidateIdentity candidateIdentity) {
+        this.zkConnection = zkConnection;
+        this.zooKeeper = zooKeeper;
         this.ensembleSize = ensembleSize;
+        electionQuorum = getMajority(ensembleSize);
+        this.candidateIdentity = candidateIdentity;
+        //the load reported in elections is increased for every target group the candidate currently leads
+        electionIdentity = new CandidateIdentity(candidateIdentity.getHostName(), candidateIdentity.getNodeName(),
+                () -> {
+                    double[] loads = candidateIdentity.getLoadsSource().get().clone();
+                    loads[0] += groupLoadPenalty * ledGroups.get();
+                    return loads;
+                });
+    }
+
+    /**
+     * Method for setting the load added to the candidate's load in elections for each target group it currently leads,
+     * which spreads the leaders of the groups across the candidates.
+     *
+     * @param groupLoadPenalty the load added per led group.
+     */
+    public void setGroupLoadPenalty(double groupLoadPenalty) {
+        this.groupLoadPenalty = groupLoadPenalty;
+    }
+
+    /**
+     * Method for setting the minimum number of candidates an election requires. Elections proceed as soon as all live
+     * members of the ensemble arrived, as long as they are at least this many. By default, a majority of the
+     * ensembleSize candidates is required, so elections go on while a minority of the candidates is down.
+     *
+     * @param electionQuorum the minimum number of candidates taking part in an election.
+     */
+    public void setElectionQuorum(int electionQuorum) {
+        this.electionQuorum = electionQuorum;
+    }
+
+    /**
+     * Method for obtaining the default election quorum, a majority of the ensemble.
+     *
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @return the smallest number of candidates which is more than half of the ensemble.
+     */
+    public static int getMajority(int ensembleSize) {
+        return ensembleSize / 2 + 1;
+    }
+
+    /**
+     * Method for setting the scoring model ranking the participants of the elections by their load vectors. By
+     * default, the participants are ranked by their CPU load only.
+     *
+     * @param scoringModel the scoring model.
+     */
+    public void setScoringModel(ScoringModel scoringModel) {
+        this.scoringModel = scoringModel;
+    }
+
+    /**
+     * Method for measuring the load of the candidate's node, without the load added for the groups it leads.
+     *
+     * @return the relative CPU load of the node.
+     */
+    public double measureLoad() {
+        return candidateIdentity.getLoadSource().getAsDouble();
     }
 
     /**
@@ -36,11 +147,199 @@ public class Candidate {
      * @throws KeeperException
      */
     public boolean runElection(double randomWeight) throws InterruptedException, KeeperException {
-        // ***CHOOSE ELECTION IMPLEMENTATION HERE***
-        Election election = new HeuristicElection(zooKeeper, ensembleSize, randomWeight); //returns when election znode is bootstrapped
-//        Election election = new RandomElection(zooKeeper, ensembleSize); //returns when election znode is bootstrapped
-        // ***CHOOSE ELECTION IMPLEMENTATION HERE***
-        return election.waitForResult();
+        return runElection(randomWeight, null);
+    }
+
+    /**
+     * Method for participating in the election of a target group. The elections of different groups are independent
+     * and may run concurrently in different threads. If the session fails during the election, it is recovered and the
+     * election counts as lost.
+     *
+     * @param randomWeight the weight of the random component in the election, must be between 0.0 and 1.0.
+     * @param group the name of the target group, or null for the single election without groups.
+     * @return true if elected as leader of the group, and false otherwise.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public boolean runElection(double randomWeight, String group) throws InterruptedException, KeeperException {
+        ZooKeeper session = zooKeeper;
+        Election election = null;
+        try {
+            // ***CHOOSE ELECTION IMPLEMENTATION HERE***
+            election = new HeuristicElection(session, ensembleSize, randomWeight, electionIdentity, group); //returns when election znode is bootstrapped
+//            election = new RandomElection(session, ensembleSize, electionIdentity, group); //returns when election znode is bootstrapped
+            // ***CHOOSE ELECTION IMPLEMENTATION HERE***
+            election.setMetrics(electionMetrics);
+            election.setQuorum(electionQuorum);
+            election.setScoringModel(scoringModel);
+            return election.waitForResult();
+        } catch (KeeperException e) {
+            recoverSession(session, e);
+            if (election != null && zooKeeper == session) {
+                election.abandon(); //the session reconnected and still holds the znodes of the interrupted election
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Method for recovering from a failed ZooKeeper operation of the current session.
+     *
+     * @param e the exception thrown by the failed operation.
+     * @throws InterruptedException
+     * @throws KeeperException the given exception, if the session cannot be replaced.
+     */
+    public void recoverSession(KeeperException e) throws InterruptedException, KeeperException {
+        recoverSession(zooKeeper, e);
+    }
+
+    /**
+     * Method for recovering from a failed ZooKeeper operation. If the session lost its connection, the candidate waits
+     * for the client to reconnect the session within the session timeout and keeps it. If the session expired or did
+     * not reconnect in time, it is replaced by a new session. Closing the old session removes the candidate's
+     * ephemeral znodes, so the candidate leaves the interrupted election cleanly and joins the next one. The election
+     * znodes are bootstrapped again by the next election.
+     *
+     * @param failedZooKeeper the handle of the session used by the failed operation.
+     * @param e the exception thrown by the failed operation.
+     * @throws InterruptedException
+     * @throws KeeperException the given exception, if it was not caused by the session or the candidate has no
+     * connection to replace the session with.
+     */
+    private void recoverSession(ZooKeeper failedZooKeeper, KeeperException e) throws InterruptedException, KeeperException {
+        boolean sessionFailed = e instanceof KeeperException.SessionExpiredException
+                || e instanceof KeeperException.ConnectionLossException;
+        if (!sessionFailed || zkConnection == null) {
+            throw e;
+        }
+        if (e instanceof KeeperException.ConnectionLossException) {
+            System.out.println("Lost the connection to ZooKeeper, waiting for the session to reconnect...");
+            if (zkConnection.awaitConnected(failedZooKeeper)) {
+                return;
+            }
+        }
+        System.out.printf("ZooKeeper session failed (%s), replacing it...%n", e.code());
+        try {
+            zooKeeper = zkConnection.reconnect(failedZooKeeper);
+        } catch (IOException ioException) {
+            e.addSuppressed(ioException);
+            throw e;
+        }
+    }
+
+    /**
+     * Method for moving the targets of a group as its elected leader. While the move runs, the group counts towards the
+     * load penalty of the candidate.
+     *
+     * @param move the move of the group's targets.
+     */
+    public void leadGroup(Runnable move) {
+        ledGroups.incrementAndGet();
+        try {
+            move.run();
+        } finally {
+            ledGroups.decrementAndGet();
+        }
+    }
+
+    /**
+     * Method for participating in a pipelined election. Waits until the move reserved in the previous election started,
+     * then runs the election. If elected, the candidate reserves the next move and hands it to its mover thread, which
+     * runs it as soon as the previous move finished. The method returns without waiting for the move, so the candidate
+     * takes part in the next election while the move is in progress.
+     *
+     * @param randomWeight the weight of the random component in the election, must be between 0.0 and 1.0.
+     * @param move the move to run if elected.
+     * @return true if elected as leader, and false otherwise.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public boolean runPipelinedElection(double randomWeight, Runnable move) throws InterruptedException, KeeperException {
+        MoveToken.awaitReservationTaken(zooKeeper);
+        boolean elected = runElection(randomWeight);
+        if (elected) {
+            MoveToken moveToken = new MoveToken(zooKeeper, candidateIdentity.getHostName());
+            mover.submit(() -> runMove(moveToken, move));
+        }
+        return elected;
+    }
+
+    /**
+     * Method for running a reserved move on the mover thread once the move token was acquired. The token is released
+     * afterwards, also if the move failed.
+     *
+     * @param moveToken the move token reserved for the move.
+     * @param move the move to run.
+     */
+    private void runMove(MoveToken moveToken, Runnable move) {
+        try {
+            try {
+                moveToken.acquire();
+                move.run();
+            } finally {
+                moveToken.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method for acquiring the leader lease after winning an election.
+     *
+     * @param termMoves the maximum number of moves in the lease term, or 0 for no limit.
+     * @param termMillis the maximum duration of the lease term in milliseconds, or 0 for no limit.
+     * @return the acquired lease.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public LeaderLease acquireLease(int termMoves, long termMillis) throws InterruptedException, KeeperException {
+        LeaderLease lease = new LeaderLease(zooKeeper, candidateIdentity.getHostName(), termMoves, termMillis);
+        lease.acquire();
+        return lease;
+    }
+
+    /**
+     * Method for waiting until the current leader released its lease, which ends its term.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public void awaitLeaseRelease() throws InterruptedException, KeeperException {
+        LeaderLease.awaitRelease(zooKeeper);
+    }
+
+    /**
+     * Method for obtaining the metrics of all elections this candidate took part in.
+     *
+     * @return the candidate's election metrics.
+     */
+    public ElectionMetrics getElectionMetrics() {
+        return electionMetrics;
+    }
+
+    /**
+     * Method for exporting the candidate's election metrics as output lines.
+     *
+     * @return the output lines, one per recorded phase and one per counter.
+     */
+    public List<String> exportElectionMetrics() {
+        return electionMetrics.export(candidateIdentity.getHostName());
+    }
+
+    /**
+     * Method for connecting to the ZooKeeper server living in the same pod.
+     *
+     * @return the established connection.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private static ZKConnection connectToLocalServer() throws IOException, InterruptedException {
+        ZKConnection zkConnection = new ZKConnection();
+        zkConnection.connect(getZKFQDN());
+        return zkConnection;
     }
 
     /**
@@ -48,7 +347,7 @@ public class Candidate {
      *
      * @return the FQDN of the local ZooKeeper server.
      */
-    private String getZKFQDN() {
+    private static String getZKFQDN() {
         String zkFQDNPrefix = System.getenv("HOSTNAME");
         String zkFQDNSuffix = ".zk-hs.mtd.svc.cluster.local";
         return zkFQDNPrefix + zkFQDNSuffix;
@@ -0,0 +1,90 @@
+package leaderelection;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Class representing the identity of a candidate: its hostname, the Kubernetes node it runs on and the source of the
+ * load it reports in heuristic elections. In the cluster, the identity is read from the environment of the pod.
+ */
+public class CandidateIdentity {
+    private final String hostName;
+    private final String nodeName;
+    private final DoubleSupplier loadSource;
+    private final Supplier<double[]> loadsSource;
+
+    /**
+     * Constructor for CandidateIdentity with a custom load source.
+     *
+     * @param hostName the hostname identifying the candidate in elections.
+     * @param nodeName the name of the Kubernetes node the candidate runs on.
+     * @param loadSource the source of the relative CPU load of the candidate's node.
+     */
+    public CandidateIdentity(String hostName, String nodeName, DoubleSupplier loadSource) {
+        this.hostName = hostName;
+        this.nodeName = nodeName;
+        this.loadSource = loadSource;
+        loadsSource = () -> new double[]{loadSource.getAsDouble()};
+    }
+
+    /**
+     * Constructor for CandidateIdentity with a custom source of load vectors.
+     *
+     * @param hostName the hostname identifying the candidate in elections.
+     * @param nodeName the name of the Kubernetes node the candidate runs on.
+     * @param loadsSource the source of the load vectors of the candidate's node, in the order of
+     * ScoringModel.Resource, the first one being the relative CPU load.
+     */
+    public CandidateIdentity(String hostName, String nodeName, Supplier<double[]> loadsSource) {
+        this.hostName = hostName;
+        this.nodeName = nodeName;
+        this.loadsSource = loadsSource;
+        loadSource = () -> loadsSource.get()[0];
+    }
+
+    /**
+     * Constructor for CandidateIdentity. The load is obtained from the metrics server for the given node.
+     *
+     * @param hostName the hostname identifying the candidate in elections.
+     * @param nodeName the name of the Kubernetes node the candidate runs on.
+     */
+    public CandidateIdentity(String hostName, String nodeName) {
+        this(hostName, nodeName, () -> HeuristicElection.getRelativeCpuLoad(nodeName));
+    }
+
+    /**
+     * Method for obtaining the identity of the candidate running in the current pod.
+     *
+     * @return the identity given by the HOSTNAME and MY_NODE_NAME environment variables.
+     */
+    public static CandidateIdentity fromEnvironment() {
+        return new CandidateIdentity(Election.getHostName(), System.getenv("MY_NODE_NAME"));
+    }
+
+    /**
+     * Method for obtaining the identity of the candidate running in the current pod with the given load provider.
+     *
+     * @param loadProvider the source of the load reported in heuristic elections.
+     * @return the identity given by the HOSTNAME and MY_NODE_NAME environment variables.
+     */
+    public static CandidateIdentity fromEnvironment(LoadProvider loadProvider) {
+        return new CandidateIdentity(Election.getHostName(), System.getenv("MY_NODE_NAME"),
+                (Supplier<double[]>) loadProvider::getLoads);
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public DoubleSupplier getLoadSource() {
+        return loadSource;
+    }
+
+    public Supplier<double[]> getLoadsSource() {
+        return loadsSource;
+    }
+}
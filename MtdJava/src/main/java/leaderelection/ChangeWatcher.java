@@ -0,0 +1,51 @@
+package leaderelection;
+
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+/**
+ * Class for blocking a thread until a ZooKeeper watch fires, so that znodes are only read again after a change.
+ */
+class ChangeWatcher implements Watcher {
+    private boolean changed = false;
+
+    /**
+     * Method called by the ZooKeeper client when the watch fires. Wakes up the waiting thread.
+     *
+     * @param watchedEvent the event reported by ZooKeeper.
+     */
+    @Override
+    public synchronized void process(WatchedEvent watchedEvent) {
+        changed = true;
+        notifyAll();
+    }
+
+    /**
+     * Method for forgetting earlier changes. Must be called before the read that sets the watch.
+     */
+    synchronized void reset() {
+        changed = false;
+    }
+
+    /**
+     * Method for blocking until the watch fired or the deadline passed.
+     *
+     * @param deadline the point in time in milliseconds at which to give up, or 0 to wait without deadline.
+     * @return true if the watch fired, and false if the deadline passed before.
+     * @throws InterruptedException
+     */
+    synchronized boolean awaitChange(long deadline) throws InterruptedException {
+        while (!changed) {
+            if (deadline == 0) {
+                wait();
+            } else {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+        }
+        return true;
+    }
+}
@@ -2,15 +2,24 @@ package leaderelection;
 
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
 
 /**
  * Parent class of the two types of election, defining most of the election functionality.
@@ -21,16 +30,28 @@ public abstract class Election {
     protected static final String ELECTION_PATH = "/election";
     protected static final String BARRIER_1_PATH = "/barrier1";
     protected static final String BARRIER_2_PATH = "/barrier2";
+    protected static final String GROUPS_PATH = "/groups";
+    protected static final String MEMBERS_PATH = MembershipWatcher.MEMBERS_PATH;
     private static final long TIMEOUT_MILLISECONDS = 30_000;
     protected static final String TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS";
     protected static ZoneId CET_ZONE_ID = ZoneId.of("Europe/Paris");
 
     protected final ZooKeeper zooKeeper;
     protected final UUID identity;
+    protected final String hostName;
+    protected final String nodeName;
+    protected final DoubleSupplier loadSource;
+    protected final Supplier<double[]> loadsSource;
     protected final int ensembleSize;
-    private final double randomWeight;
+    protected final double randomWeight;
+    protected final String groupPath;
 
     protected boolean elected = false;
+    protected ElectionMetrics metrics = new ElectionMetrics();
+    protected int quorum;
+    protected ScoringModel scoringModel = ScoringModel.CPU_ONLY;
+    private String registrationPath;
+    private final AtomicReference<KeeperException> asyncFailure = new AtomicReference<>();
 
     /**
      * Constructor for instances of Election. Instantiates the candidate's UUID for the election, and attempts to
@@ -43,39 +64,127 @@ public abstract class Election {
      * @throws KeeperException
      */
     public Election(ZooKeeper zooKeeper, int ensembleSize, double randomWeight) throws InterruptedException, KeeperException {
+        this(zooKeeper, ensembleSize, randomWeight, CandidateIdentity.fromEnvironment());
+    }
+
+    /**
+     * Constructor for instances of Election with an explicit hostname, used when several candidates share one host.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param hostName the hostname identifying the candidate in the election.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public Election(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, String hostName) throws InterruptedException, KeeperException {
+        this(zooKeeper, ensembleSize, randomWeight, new CandidateIdentity(hostName, System.getenv("MY_NODE_NAME")));
+    }
+
+    /**
+     * Constructor for instances of Election with an injected candidate identity, used to run candidates outside of
+     * a Kubernetes pod.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public Election(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, CandidateIdentity candidateIdentity) throws InterruptedException, KeeperException {
+        this(zooKeeper, ensembleSize, randomWeight, candidateIdentity, null);
+    }
+
+    /**
+     * Constructor for instances of Election in a target group. Each group has its own znode tree under
+     * /groups/&lt;group&gt; and elects its own leader, independent of the elections of other groups.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @param group the name of the target group, or null for the single election without groups.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public Election(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, CandidateIdentity candidateIdentity, String group) throws InterruptedException, KeeperException {
+        if (group != null && (group.isEmpty() || group.contains("/"))) {
+            throw new IllegalArgumentException("Invalid group name: " + group);
+        }
         //initialize the final variables
         this.zooKeeper = zooKeeper;
+        this.hostName = candidateIdentity.getHostName();
+        this.nodeName = candidateIdentity.getNodeName();
+        this.loadSource = candidateIdentity.getLoadSource();
+        this.loadsSource = candidateIdentity.getLoadsSource();
         identity = UUID.randomUUID();
         this.ensembleSize = ensembleSize;
         this.randomWeight = randomWeight;
-
-        //bootstrap znode structure required for elections and synchronization
-        for (String znodePath : new String[]{ELECTION_PATH, BARRIER_1_PATH, BARRIER_2_PATH}) {
-            bootstrapZnode(znodePath);
+        quorum = ensembleSize;
+        groupPath = group == null ? "" : GROUPS_PATH + "/" + group;
+
+        //bootstrap znode structure required for elections and synchronization. The creations are sent asynchronously,
+        //ZooKeeper applies them in order and before any later request of this session
+        createZnodeAsync(MEMBERS_PATH, CreateMode.PERSISTENT);
+        joinMembersAsync();
+        if (group != null) {
+            createZnodeAsync(GROUPS_PATH, CreateMode.PERSISTENT);
+            createZnodeAsync(groupPath, CreateMode.PERSISTENT);
+        }
+        for (String znodePath : getBootstrapPaths()) {
+            createZnodeAsync(inGroup(znodePath), CreateMode.PERSISTENT);
         }
     }
 
     /**
-     * Method for creating a znode if it does not exist yet.
+     * Method for setting the metrics the phases of this election are recorded into, usually shared by all elections of
+     * a candidate. By default, each election records into its own metrics.
      *
-     * @param znodePath the path to be used for the znode.
+     * @param metrics the metrics to record into.
      */
-    private void bootstrapZnode(String znodePath) throws InterruptedException, KeeperException {
-        if (!znodeExists(znodePath)) {
-            tryCreateZnode(znodePath, true);
-        }
+    public void setMetrics(ElectionMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
-     * Method for checking whether a znode with a given path exists.
+     * Method for setting the minimum number of candidates an election requires. Apart from the quorum, an election
+     * waits for all live members of the ensemble, so the quorum only matters if candidates crashed or have not
+     * started yet. By default, all ensembleSize candidates are required.
      *
-     * @param znodePath the path of the znode to be checked.
-     * @return true if the znode exists, and false otherwise.
-     * @throws InterruptedException
-     * @throws KeeperException
+     * @param quorum the minimum number of candidates taking part in the election.
+     */
+    public void setQuorum(int quorum) {
+        this.quorum = quorum;
+    }
+
+    /**
+     * Method for setting the scoring model ranking the participants by their registered load vectors. By default, the
+     * participants are ranked by their CPU load only.
+     *
+     * @param scoringModel the scoring model.
+     */
+    public void setScoringModel(ScoringModel scoringModel) {
+        this.scoringModel = scoringModel;
+    }
+
+    /**
+     * Method for obtaining the path of a znode within the znode tree of this election's group.
+     *
+     * @param znodePath the path of the znode relative to the group.
+     * @return the absolute path of the znode.
+     */
+    protected String inGroup(String znodePath) {
+        return groupPath + znodePath;
+    }
+
+    /**
+     * Method for obtaining the paths of the persistent znodes this type of election requires, relative to the group.
+     *
+     * @return the paths of the znodes to be bootstrapped.
      */
-    private boolean znodeExists(String znodePath) throws InterruptedException, KeeperException {
-        return zooKeeper.exists(znodePath, false) != null;
+    protected String[] getBootstrapPaths() {
+        return new String[]{ELECTION_PATH, BARRIER_1_PATH, BARRIER_2_PATH};
     }
 
     /**
@@ -96,24 +205,119 @@ public abstract class Election {
         return Objects.requireNonNull(System.getenv("MY_NODE_NAME"));
     }
 
+    /**
+     * Method for creating the path of the current candidate's registration znode.
+     *
+     * @return the path of the registration znode.
+     */
+    protected String createRegistrationPath() {
+        return getMyIdPath();
+    }
+
+    /**
+     * Method for measuring the load values registered by the current candidate. Elections not based on load register
+     * no load values.
+     *
+     * @return the measured load values, the first one being the CPU load.
+     */
+    protected double[] measureLoads() {
+        return new double[0];
+    }
+
+    /**
+     * Method for creating the registration record stored as the data of the current candidate's registration znode.
+     *
+     * @return the encoded registration record.
+     */
+    protected byte[] createRegistrationData() {
+        long measureStart = System.nanoTime();
+        double[] loads = measureLoads();
+        metrics.recordPhase(ElectionMetrics.Phase.MEASURE_LOAD, measureStart);
+        return new RegistrationRecord(identity, nodeName, loads, System.currentTimeMillis()).encode();
+    }
+
     /**
      * Method for registering the current candidate for the election.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
      */
-    public abstract void register() throws InterruptedException, KeeperException;
+    public void register() throws InterruptedException, KeeperException {
+        registrationPath = createRegistrationPath();
+        System.out.printf("Registering with path: %s%n", registrationPath);
+        zooKeeper.create(registrationPath, createRegistrationData(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+    }
 
     /**
-     * Method for attempting to create a znode.
+     * Method for asynchronously creating a znode. An already existing znode is not treated as a failure.
      *
      * @param znodePath the path for the znode to be created.
-     * @param persistent true if the znode should be persistent, and false if it should be ephemeral.
-     * @throws InterruptedException
+     * @param createMode the mode of the znode to be created.
+     */
+    private void createZnodeAsync(String znodePath, CreateMode createMode) {
+        zooKeeper.create(znodePath, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, createMode, (rc, path, ctx, name) -> {
+            if (rc == KeeperException.Code.NODEEXISTS.intValue()) {
+                System.out.printf("Znode %s already exists!%n", path);
+                if (createMode != CreateMode.PERSISTENT) { //existing persistent bootstrap znodes are the normal case
+                    metrics.increment(ElectionMetrics.Counter.NODE_EXISTS);
+                }
+            } else if (rc != KeeperException.Code.OK.intValue()) {
+                recordAsyncFailure(rc, path);
+            }
+        }, null);
+    }
+
+    /**
+     * Method for asynchronously making the current candidate a live member of the ensemble. The ephemeral member
+     * znode is shared by all elections of the candidate's session, so an existing member znode is the normal case.
+     * A member znode left by a previous session of the same host vanishes with that session, the next election then
+     * creates it again.
+     */
+    private void joinMembersAsync() {
+        zooKeeper.create(MEMBERS_PATH + "/" + hostName, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL,
+                (rc, path, ctx, name) -> {
+                    if (rc != KeeperException.Code.OK.intValue() && rc != KeeperException.Code.NODEEXISTS.intValue()) {
+                        recordAsyncFailure(rc, path);
+                    }
+                }, null);
+    }
+
+    /**
+     * Method for asynchronously deleting a znode. A missing znode is not treated as a failure.
+     *
+     * @param znodePath the path of the znode to be deleted.
+     */
+    private void deleteZnodeAsync(String znodePath) {
+        zooKeeper.delete(znodePath, -1, (rc, path, ctx) -> {
+            if (rc == KeeperException.Code.NONODE.intValue()) {
+                System.out.printf("%s does not exist!%n", path);
+                metrics.increment(ElectionMetrics.Counter.NO_NODE);
+            } else if (rc != KeeperException.Code.OK.intValue()) {
+                recordAsyncFailure(rc, path);
+            }
+        }, null);
+    }
+
+    /**
+     * Method for remembering the first failure of an asynchronous operation, so it can be thrown by the election
+     * thread.
+     *
+     * @param rc the result code of the failed operation.
+     * @param path the path of the failed operation.
+     */
+    private void recordAsyncFailure(int rc, String path) {
+        asyncFailure.compareAndSet(null, KeeperException.create(KeeperException.Code.get(rc), path));
+    }
+
+    /**
+     * Method for throwing the failure of an earlier asynchronous operation, if any.
+     *
      * @throws KeeperException
      */
-    private void tryCreateZnode(String znodePath, boolean persistent) throws InterruptedException, KeeperException {
-        try{
-            zooKeeper.create(znodePath, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, persistent ? CreateMode.PERSISTENT : CreateMode.EPHEMERAL);
-        } catch (KeeperException.NodeExistsException e) {
-            System.out.printf("Znode %s already exists!%n", znodePath);
+    private void throwAsyncFailure() throws KeeperException {
+        KeeperException failure = asyncFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
         }
     }
 
@@ -130,6 +334,7 @@ public abstract class Election {
             System.out.printf("Successfully deleted the %s znode%n", znodePath);
         } catch (KeeperException.NoNodeException e) {
             System.out.printf("%s does not exist!%n", znodePath);
+            metrics.increment(ElectionMetrics.Counter.NO_NODE);
         }
     }
 
@@ -139,7 +344,7 @@ public abstract class Election {
      * @return the current candidate's znode path, up to and including its UUID.
      */
     protected String getMyIdPath() {
-        return ELECTION_PATH + "/" + getHostName() + NAME_UUID_DELIMITER + identity;
+        return inGroup(ELECTION_PATH) + "/" + hostName + NAME_UUID_DELIMITER + identity;
     }
 
     /**
@@ -148,75 +353,170 @@ public abstract class Election {
      * @throws InterruptedException
      * @throws KeeperException
      */
-    public abstract void unregister() throws InterruptedException, KeeperException;
+    public void unregister() throws InterruptedException, KeeperException {
+        tryDeleteZnode(registrationPath);
+    }
 
     /**
-     * Method for obtaining a list of participants from the list of znode IDs.
-     * If load numbers are present, they are separated from the UUIDs by a special delimiter.
-     * If no load value is found, a default value of 0.5 is used.
+     * Method for leaving an election that was interrupted by a lost connection while the session was kept. Deletes the
+     * current candidate's registration and barrier 1 znodes, so they are not taken for a participant of the next
+     * election. The barrier 2 znode is left as after a completed election.
      *
-     * @param registeredCandidates the list of znode IDs to extract the participants from.
-     * @return the extracted list of participants.
+     * @throws InterruptedException
+     * @throws KeeperException
      */
-    private List<Participant> extractParticipants(List<String> registeredCandidates) {
-        List<Participant> extractedParticipants = new ArrayList<>();
+    public void abandon() throws InterruptedException, KeeperException {
+        if (registrationPath != null) {
+            tryDeleteZnode(registrationPath);
+        }
+        tryDeleteZnode(getMyBarrierPath(BARRIER_1_PATH));
+    }
 
-        for (String znodeId : registeredCandidates) {
-            String id;
-            double load;
-            if (znodeId.contains(UUID_LOAD_DELIMITER)) { //there is a load number embedded in the znode ID
-                String[] idAndLoad = znodeId.split(UUID_LOAD_DELIMITER);
-                id = idAndLoad[0];
-                String loadStr = idAndLoad[1];
-                load = Double.parseDouble(loadStr);
-            } else { //no load value discovered, create participant with half CPU load
-                id = znodeId;
-                load = HeuristicElection.HALF_CPU_LOAD;
+    /**
+     * Method for obtaining the participants from the registration znodes. The data of all registration znodes is read
+     * with asynchronous requests sent at once, and decoded as registration records. Registrations without a record,
+     * from candidates running an older version, are parsed from their znode names instead. Registrations deleted
+     * meanwhile are skipped. The participants are ranked by the scores the scoring model computes from the load
+     * vectors of all participants.
+     *
+     * @param parentPath the path of the znode under which the candidates registered.
+     * @param registeredCandidates the names of the registration znodes.
+     * @return the participants keyed by the names of their registration znodes, in the order of the given names.
+     * @throws InterruptedException
+     */
+    protected Map<String, Participant> readParticipants(String parentPath, List<String> registeredCandidates) throws InterruptedException {
+        byte[][] registrationData = new byte[registeredCandidates.size()][];
+        boolean[] present = new boolean[registeredCandidates.size()];
+        CountDownLatch readsDone = new CountDownLatch(registeredCandidates.size());
+        for (int i = 0; i < registeredCandidates.size(); i++) {
+            zooKeeper.getData(parentPath + "/" + registeredCandidates.get(i), false, (rc, path, ctx, data, stat) -> {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    registrationData[(int) ctx] = data;
+                    present[(int) ctx] = true;
+                }
+                readsDone.countDown();
+            }, i);
+        }
+        readsDone.await();
+
+        List<String> znodeIds = new ArrayList<>();
+        List<Participant> registeredParticipants = new ArrayList<>();
+        List<double[]> loadVectors = new ArrayList<>();
+        for (int i = 0; i < registeredCandidates.size(); i++) {
+            if (!present[i]) {
+                continue;
+            }
+            String znodeId = registeredCandidates.get(i);
+            RegistrationRecord record = RegistrationRecord.decode(registrationData[i]);
+            if (record != null) {
+                String name = znodeId.substring(0, Math.max(0, znodeId.lastIndexOf(NAME_UUID_DELIMITER)));
+                registeredParticipants.add(new Participant(name, record.getIdentifier(), record.getCpuLoad(), randomWeight));
+                loadVectors.add(record.getLoads());
+            } else { //old-style, unknown or corrupt data, the participant keeps the load embedded in its name or 0.5
+                Participant participant = extractParticipant(znodeId);
+                registeredParticipants.add(participant);
+                loadVectors.add(new double[]{participant.getLoad()});
             }
-            String[] nameAndUuid = id.split(NAME_UUID_DELIMITER);
-            String name = nameAndUuid[0];
-            String uuidStr = nameAndUuid[1];
-            extractedParticipants.add(new Participant(name, uuidStr, load, randomWeight));
+            znodeIds.add(znodeId);
         }
 
-        return extractedParticipants;
+        //rank the participants by the scores of their load vectors, computed alike by every candidate
+        double[] scores = scoringModel.score(loadVectors);
+        Map<String, Participant> participants = new LinkedHashMap<>();
+        for (int i = 0; i < znodeIds.size(); i++) {
+            Participant participant = registeredParticipants.get(i);
+            participants.put(znodeIds.get(i), new Participant(participant.getName(), participant.getIdentifier(),
+                    scores[i], randomWeight));
+        }
+        return participants;
     }
 
     /**
-     * Method for performing all steps of an election. Waits for all candidates to be present, evaluates whether the
-     * current candidate won and returns the election result of the current candidate.
+     * Method for obtaining a participant from an old-style znode ID.
+     * If a load number is present, it is separated from the UUID by a special delimiter.
+     * If no load value is found, a default value of 0.5 is used.
+     *
+     * @param znodeId the znode ID to extract the participant from.
+     * @return the extracted participant.
+     */
+    protected Participant extractParticipant(String znodeId) {
+        String id;
+        double load;
+        int loadIndex = znodeId.lastIndexOf(UUID_LOAD_DELIMITER);
+        if (loadIndex > znodeId.lastIndexOf(NAME_UUID_DELIMITER)) { //there is a load number embedded in the znode ID
+            id = znodeId.substring(0, loadIndex);
+            String loadStr = znodeId.substring(loadIndex + 1);
+            load = Double.parseDouble(loadStr);
+        } else { //no load value discovered, create participant with half CPU load
+            id = znodeId;
+            load = HeuristicElection.HALF_CPU_LOAD;
+        }
+        int uuidIndex = id.lastIndexOf(NAME_UUID_DELIMITER);
+        String name = id.substring(0, uuidIndex);
+        String uuidStr = id.substring(uuidIndex + 1);
+        return new Participant(name, uuidStr, load, randomWeight);
+    }
+
+    /**
+     * Method for performing all steps of an election. Waits for all live members of the ensemble, and at least the
+     * quorum of candidates, to be present, evaluates whether the current candidate won and returns the election result
+     * of the current candidate. Candidates that crash during the election are no longer waited for once their session
+     * expired.
+     * The writes of each phase are batched into one multi-op transaction or sent asynchronously, so a candidate needs
+     * two synchronous write round trips per election. Since the multi-ops are atomic, a crash cannot leave a
+     * candidate registered without having left the previous barrier.
+     * The duration of each phase is recorded into the election metrics.
      *
      * @return true if the current candidate won, and false otherwise.
      */
     public boolean waitForResult() throws InterruptedException, KeeperException {
-        //1. sync at barrier 1, no timeout
-        enterBarrier(BARRIER_1_PATH, false);
+        long electionStart = System.nanoTime();
 
-        //2. delete previous barrier 2 znode
-        leaveBarrier(BARRIER_2_PATH);
+        //1. sync at barrier 1, no timeout
+        List<String> roundCandidates = enterBarrier(BARRIER_1_PATH, false);
+        long phaseStart = metrics.recordPhase(ElectionMetrics.Phase.BARRIER_1, electionStart);
 
-        //3. wait for all candidates to register
-        register();
+        //2. delete previous barrier 2 znode and register, in one transaction
+        leaveBarrier2AndRegister();
+        phaseStart = metrics.recordPhase(ElectionMetrics.Phase.LEAVE_BARRIER_2_AND_REGISTER, phaseStart);
 
-        //4. wait until enough candidates are registered
-        List<String> registeredCandidates = waitForRegistrations();
+        //3. wait until the candidates of this round are registered
+        List<String> registeredCandidates = waitForRegistrations(roundCandidates);
+        phaseStart = metrics.recordPhase(ElectionMetrics.Phase.WAIT_FOR_REGISTRATIONS, phaseStart);
         if (registeredCandidates == null) {
-            unregister();
+            metrics.increment(ElectionMetrics.Counter.TIMEOUT);
+            deleteZnodeAsync(registrationPath);
+            deleteZnodeAsync(getMyBarrierPath(BARRIER_1_PATH));
+            metrics.recordPhase(ElectionMetrics.Phase.TOTAL, electionStart);
             return false;
         }
 
-        //5. determine the election result
+        //4. determine the election result
         System.out.println("Determining the election result...");
-        List<Participant> extractedParticipants = extractParticipants(registeredCandidates);
+        //a purely random order only depends on the UUIDs in the znode names, so the registrations need not be read
+        List<Participant> extractedParticipants = new ArrayList<>();
+        if (randomWeight >= 1.0) {
+            for (String znodeId : registeredCandidates) {
+                extractedParticipants.add(extractParticipant(znodeId));
+            }
+        } else {
+            extractedParticipants.addAll(readParticipants(inGroup(ELECTION_PATH), registeredCandidates).values());
+        }
         System.out.printf("Extracted election participants:%n%s%n", extractedParticipants);
         boolean result = wonTheElection(extractedParticipants);
+        phaseStart = metrics.recordPhase(ElectionMetrics.Phase.DECIDE, phaseStart);
 
-        //6. free barrier 1, enter barrier 2
-        leaveBarrier(BARRIER_1_PATH);
-        boolean successful = enterBarrier(BARRIER_2_PATH, true);
+        //5. free barrier 1 and enter barrier 2, in one transaction
+        boolean successful = leaveBarrier1AndEnterBarrier2(registeredCandidates);
+        phaseStart = metrics.recordPhase(ElectionMetrics.Phase.BARRIER_2, phaseStart);
+        if (!successful) {
+            metrics.increment(ElectionMetrics.Counter.TIMEOUT);
+        }
 
-        //7. unregister, return false or election result
-        unregister();
+        //6. unregister asynchronously, return false or election result
+        deleteZnodeAsync(registrationPath);
+        metrics.recordPhase(ElectionMetrics.Phase.UNREGISTER, phaseStart);
+        metrics.recordPhase(ElectionMetrics.Phase.TOTAL, electionStart);
         if (!successful) {
             return false;
         } else {
@@ -225,69 +525,99 @@ public abstract class Election {
     }
 
     /**
-     * Method for waiting for the registration of all candidates. Checks repeatedly whether the correct number of
-     * candidates is registered. Returns null if the timeout expires while waiting.
+     * Method for obtaining the path of the current candidate's child znode of a barrier.
+     *
+     * @param barrierPath the path of the znode of the barrier, relative to the group.
+     * @return the path of the current candidate's barrier child znode.
+     */
+    private String getMyBarrierPath(String barrierPath) {
+        return String.format("%s/%s", inGroup(barrierPath), hostName);
+    }
+
+    /**
+     * Method for leaving barrier 2 of the previous election and registering for this election in one transaction.
+     * In the first election of a candidate there is no barrier 2 znode to delete yet, in that case the candidate only
+     * registers.
      *
-     * @return a list of the names of all candidates' znodes, or null if the timeout expires before all have registered.
      * @throws InterruptedException
      * @throws KeeperException
      */
-    private List<String> waitForRegistrations() throws InterruptedException, KeeperException {
-        List<String> registeredCandidates = zooKeeper.getChildren(ELECTION_PATH, false);
-        long startTime = System.currentTimeMillis();
-
-        while (registeredCandidates.size() < ensembleSize) {
-            if (System.currentTimeMillis() - startTime >= TIMEOUT_MILLISECONDS) {
-                return null; //waited for too long, timeout and return null
-            }
-            registeredCandidates = zooKeeper.getChildren(ELECTION_PATH, false);
+    private void leaveBarrier2AndRegister() throws InterruptedException, KeeperException {
+        throwAsyncFailure();
+        registrationPath = createRegistrationPath();
+        System.out.printf("Registering with path: %s%n", registrationPath);
+        Op registration = Op.create(registrationPath, createRegistrationData(), ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                CreateMode.EPHEMERAL);
+        try {
+            zooKeeper.multi(List.of(Op.delete(getMyBarrierPath(BARRIER_2_PATH), -1), registration));
+        } catch (KeeperException.NoNodeException e) {
+            System.out.printf("%s does not exist!%n", getMyBarrierPath(BARRIER_2_PATH));
+            metrics.increment(ElectionMetrics.Counter.NO_NODE);
+            zooKeeper.multi(List.of(registration));
         }
-        return registeredCandidates;
+        System.out.printf("Leaving %s!%n", inGroup(BARRIER_2_PATH));
     }
 
     /**
-     * Method for leaving a synchronization barrier. Deletes the barrier child znode of the current candidate and waits
-     * for the ones of the other candidates to disappear.
+     * Method for leaving barrier 1 and entering barrier 2 in one transaction, and waiting for the other registered
+     * candidates to enter barrier 2. The atomic transition means that all candidates have left barrier 1 once all of
+     * them are in barrier 2. Registered candidates that are no longer live members are not waited for. The wait uses a
+     * timeout, which will, if triggered, lead the method to return false.
      *
-     * @param barrierPath the path of the znode of the barrier to be left.
+     * @param registeredCandidates the names of the registration znodes of this election.
+     * @return true when all registered candidates entered barrier 2, false if the timeout expired.
      * @throws InterruptedException
      * @throws KeeperException
      */
-    private void leaveBarrier(String barrierPath) throws InterruptedException, KeeperException {
-        String myBarrierPath = String.format("%s/%s", barrierPath, getHostName());
-        tryDeleteZnode(myBarrierPath);
+    private boolean leaveBarrier1AndEnterBarrier2(List<String> registeredCandidates) throws InterruptedException, KeeperException {
+        throwAsyncFailure();
+        System.out.printf("Leaving %s!%n", inGroup(BARRIER_1_PATH));
+        System.out.printf("Entering %s!%n", inGroup(BARRIER_2_PATH));
+        zooKeeper.multi(List.of(
+                Op.delete(getMyBarrierPath(BARRIER_1_PATH), -1),
+                Op.create(getMyBarrierPath(BARRIER_2_PATH), null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL)));
+
+        Set<String> registeredHosts = MembershipWatcher.getRegisteredHosts(registeredCandidates);
+        List<String> enteredCandidates = new MembershipWatcher(zooKeeper, inGroup(BARRIER_2_PATH), false, 0,
+                registeredHosts).await(TIMEOUT_MILLISECONDS);
+        return enteredCandidates != null;
+    }
 
-        while (!zooKeeper.getChildren(barrierPath, false).isEmpty()) {
-            Thread.sleep(1000);
-        }
-        System.out.printf("Leaving %s!%n", barrierPath);
+    /**
+     * Method for waiting for the registration of the candidates that passed barrier 1 together with the current
+     * candidate. The registrations are collected through a child watch on the election znode. Returns null if the
+     * timeout expires while waiting.
+     *
+     * @param roundCandidates the hostnames of the candidates in barrier 1 when the current candidate passed it.
+     * @return a list of the names of all candidates' znodes, or null if the timeout expires before all have registered.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private List<String> waitForRegistrations(Collection<String> roundCandidates) throws InterruptedException, KeeperException {
+        return new RegistrationCollector(zooKeeper, inGroup(ELECTION_PATH), quorum, roundCandidates)
+                .collect(TIMEOUT_MILLISECONDS);
     }
 
     /**
      * Method for entering a synchronization barrier. Creates a barrier child znode for the current candidate and waits
-     * for all other candidates to do the same. Optionally, a timeout can be used. The timeout will, if triggered, lead
-     * the method to return false.
+     * for all other live members, and at least the quorum of candidates, to do the same. The barrier child znode is
+     * created asynchronously, the following read of the barrier is ordered after it. The barrier's children and the
+     * members are watched, so they are only read again after a candidate arrived, joined or left. Optionally, a
+     * timeout can be used. The timeout will, if triggered, lead the method to return null.
      *
-     * @param barrierPath the path of the znode of the barrier to be entered.
+     * @param barrierPath the path of the znode of the barrier to be entered, relative to the group.
      * @param useTimeout whether a timeout should be used, true means timeout, false means no timeout.
-     * @return true when all candidates entered the barrier, false if the timeout expired.
+     * @return the hostnames of the candidates in the barrier, or null if the timeout expired.
      * @throws InterruptedException
      * @throws KeeperException
      */
-    private boolean enterBarrier(String barrierPath, boolean useTimeout) throws InterruptedException, KeeperException {
+    private List<String> enterBarrier(String barrierPath, boolean useTimeout) throws InterruptedException, KeeperException {
         //wait for all to enter, return true when all entered and false if timeout triggered before
         System.out.printf("Entering %s!%n", barrierPath);
-        String myBarrierPath = String.format("%s/%s", barrierPath, getHostName());
-        tryCreateZnode(myBarrierPath, false);
-        long startTime = System.currentTimeMillis();
+        createZnodeAsync(getMyBarrierPath(barrierPath), CreateMode.EPHEMERAL);
 
-        while (zooKeeper.getChildren(barrierPath, false).size() < ensembleSize) {
-            if (useTimeout && System.currentTimeMillis() - startTime >= TIMEOUT_MILLISECONDS) {
-                return false; //waited for too long, timeout and return false
-            }
-            Thread.sleep(1000);
-        }
-        return true;
+        return new MembershipWatcher(zooKeeper, inGroup(barrierPath), false, quorum, null)
+                .await(useTimeout ? TIMEOUT_MILLISECONDS : 0);
     }
 
     /**
@@ -323,6 +653,32 @@ public abstract class Election {
                 getHostName());
     }
 
+    /**
+     * Method for printing an output line indicating the beginning of a candidate's leading phase in a target group.
+     *
+     * @param group the name of the target group.
+     */
+    public static void expPrintLeadStart(String group) {
+        System.out.printf("EXP-LEAD, %s, %s, %s, START, %s%n",
+                getCetTimeStamp(),
+                getMyNodeName(),
+                getHostName(),
+                group);
+    }
+
+    /**
+     * Method for printing an output line indicating the end of a candidate's leading phase in a target group.
+     *
+     * @param group the name of the target group.
+     */
+    public static void expPrintLeadEnd(String group) {
+        System.out.printf("EXP-LEAD, %s, %s, %s, END, %s%n",
+                getCetTimeStamp(),
+                getMyNodeName(),
+                getHostName(),
+                group);
+    }
+
     /**
      * Method for creating a timestamp matching the Europe/Paris timezone.
      * TODO: changing this to UTC might make more sense to avoid jumps in timestamps due to daylight savings time
@@ -0,0 +1,100 @@
+package leaderelection;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class collecting the latencies of the phases of elections and counting exceptional outcomes. One instance is
+ * shared by all elections of a candidate, so the histograms cover all elections the candidate took part in.
+ */
+public class ElectionMetrics {
+
+    /**
+     * The phases of an election. Barrier elections go through BARRIER_1 to UNREGISTER, sequential elections through
+     * ENQUEUE, AWAIT_TURN and DECIDE. MEASURE_LOAD is part of the registration in both.
+     */
+    public enum Phase {
+        BARRIER_1, MEASURE_LOAD, LEAVE_BARRIER_2_AND_REGISTER, WAIT_FOR_REGISTRATIONS, DECIDE, BARRIER_2, UNREGISTER,
+        ENQUEUE, AWAIT_TURN, TOTAL
+    }
+
+    /**
+     * The exceptional outcomes counted during elections.
+     */
+    public enum Counter {
+        TIMEOUT, NODE_EXISTS, NO_NODE
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    /**
+     * Constructor for ElectionMetrics, creating an empty histogram for each phase and a zero count for each counter.
+     */
+    public ElectionMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    /**
+     * Method for recording the latency of a phase which started at the given time and ends now.
+     *
+     * @param phase the phase that ended.
+     * @param startNanos the start of the phase as returned by System.nanoTime().
+     * @return the end of the phase, which can be used as the start of the next phase.
+     */
+    public long recordPhase(Phase phase, long startNanos) {
+        long endNanos = System.nanoTime();
+        histograms.get(phase).record(endNanos - startNanos);
+        return endNanos;
+    }
+
+    /**
+     * Method for counting an exceptional outcome.
+     *
+     * @param counter the outcome to be counted.
+     */
+    public void increment(Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * Method for exporting the metrics as output lines in the format of the experiment output, one line per phase
+     * that was recorded at least once and one line per counter.
+     *
+     * @param hostName the hostname of the candidate the metrics belong to.
+     * @return the output lines.
+     */
+    public List<String> export(String hostName) {
+        List<String> lines = new ArrayList<>();
+        String timeStamp = Election.getCetTimeStamp();
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            if (histogram.getCount() > 0) {
+                lines.add(String.format("EXP-PHASE, %s, %s, %s, %d, %.3f, %.3f, %.3f, %.3f",
+                        timeStamp, hostName, phase, histogram.getCount(), histogram.getMeanMillis(),
+                        histogram.getPercentileMillis(0.5), histogram.getPercentileMillis(0.99),
+                        histogram.getMaxMillis()));
+            }
+        }
+        for (Counter counter : Counter.values()) {
+            lines.add(String.format("EXP-COUNT, %s, %s, %s, %d", timeStamp, hostName, counter, getCount(counter)));
+        }
+        return lines;
+    }
+}
@@ -1,18 +1,8 @@
 package leaderelection;
 
-import io.kubernetes.client.Metrics;
-import io.kubernetes.client.custom.NodeMetrics;
-import io.kubernetes.client.openapi.ApiException;
-import model.kubernetes.Node;
-import model.kubernetes.exception.NodeNotFoundException;
-import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
-import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
 
-import java.util.Objects;
-import java.util.Optional;
-
 /**
  * Implementation of the Election class for heuristic-based elections.
  */
@@ -20,8 +10,6 @@ public class HeuristicElection extends Election {
     public static final double HALF_CPU_LOAD = 0.5;
     public static final double NULL_CPU_LOAD = -1.0;
 
-    private String currentPath;
-
     /**
      * Constructor for HeuristicElection without randomWeight parameter. Defaults to randomWeight 0.0.
      *
@@ -48,20 +36,60 @@ public class HeuristicElection extends Election {
     }
 
     /**
-     * Method for fetching the current load, storing it in the object variable and creating the registration znode for
-     * the current candidate.
+     * Constructor for HeuristicElection with randomWeight and hostName parameters.
      *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param hostName the hostname identifying the candidate in the election.
      * @throws InterruptedException
      * @throws KeeperException
      */
+    public HeuristicElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, String hostName) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight, hostName);
+    }
+
+    /**
+     * Constructor for HeuristicElection with randomWeight and candidateIdentity parameters.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public HeuristicElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, CandidateIdentity candidateIdentity) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight, candidateIdentity);
+    }
+
+    /**
+     * Constructor for HeuristicElection in a target group.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @param group the name of the target group, or null for the single election without groups.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public HeuristicElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, CandidateIdentity candidateIdentity, String group) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight, candidateIdentity, group);
+    }
+
+    /**
+     * Method for fetching the current loads, which are stored in the current candidate's registration record. With a
+     * LoadEstimator as load source, the CPU load is the smoothed load, so participants are ranked by their smoothed
+     * loads.
+     *
+     * @return the loads of the current node, the first one being the relative CPU load.
+     */
     @Override
-    public void register() throws InterruptedException, KeeperException {
-        double relativeCpuLoad = getRelativeCpuLoad();
-        expPrintLoad(relativeCpuLoad);
-        String myFullPath = getMyIdPath() + UUID_LOAD_DELIMITER + relativeCpuLoad;
-        currentPath = myFullPath;
-        System.out.printf("Registering with path: %s%n", currentPath);
-        zooKeeper.create(myFullPath, getHostName().getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+    protected double[] measureLoads() {
+        double[] loads = loadsSource.get();
+        expPrintLoad(loads[0]);
+        return loads;
     }
 
     /**
@@ -72,48 +100,28 @@ public class HeuristicElection extends Election {
     private void expPrintLoad(double load) {
         System.out.printf("EXP-LOAD, %s, %s, %s, %f%n",
                 getCetTimeStamp(),
-                getMyNodeName(),
-                getHostName(),
+                nodeName,
+                hostName,
                 load);
     }
 
-    @Override
-    public void unregister() throws InterruptedException, KeeperException {
-        tryDeleteZnode(currentPath);
+    /**
+     * Method for obtaining the relative CPU load of the current cluster node.
+     *
+     * @return the relative CPU load of the node, or -1.0 if something went wrong.
+     */
+    public static double getRelativeCpuLoad() {
+        return getRelativeCpuLoad(getMyNodeName());
     }
 
     /**
-     * Method for obtaining the relative CPU load of the current cluster node.
+     * Method for obtaining the relative CPU load of a cluster node. The load is read from the node's load cache, which
+     * is refreshed in the background.
      *
+     * @param nodeName the name of the cluster node.
      * @return the relative CPU load of the node, or -1.0 if something went wrong.
      */
-    private double getRelativeCpuLoad() {
-        double absoluteCpuUsage;
-        double totalCpuAvailable;
-        try {
-            Optional<NodeMetrics> optionalNodeMetrics = new Metrics()
-                    .getNodeMetrics()
-                    .getItems()
-                    .stream()
-                    .filter(metric -> Objects.equals(metric.getMetadata().getName(), getMyNodeName()))
-                    .findFirst();
-            if (optionalNodeMetrics.isPresent()) {
-                absoluteCpuUsage = optionalNodeMetrics.get()
-                        .getUsage()
-                        .get("cpu")
-                        .getNumber()
-                        .doubleValue();
-                totalCpuAvailable = new Node(getMyNodeName()).getAllocatableCpu();
-            } else {
-                System.out.printf("Node metrics data not present, return null load value: %s%n", NULL_CPU_LOAD);
-                return NULL_CPU_LOAD;
-            }
-        } catch (ApiException | NodeNotFoundException e) {
-            System.out.printf("Catching %s caused by fetching node metrics:%n", e.getClass());
-            System.out.println(e.getMessage());
-            System.out.printf("Return null load value: %s%n", NULL_CPU_LOAD);
-            return NULL_CPU_LOAD;
-        }
-        return absoluteCpuUsage / totalCpuAvailable;
+    public static double getRelativeCpuLoad(String nodeName) {
+        return NodeLoadCache.forNode(nodeName).getRelativeCpuLoad();
     }
 }
@@ -0,0 +1,107 @@
+package leaderelection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class recording latencies into a histogram with logarithmic buckets. Each power of two is split into
+ * SUB_BUCKETS buckets, so a percentile is accurate to about 20 percent for latencies between one microsecond and
+ * several days. Recording is lock-free and may happen from any thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int NUM_BUCKETS = 38 * SUB_BUCKETS;
+    private static final long MIN_NANOS = 1_000;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Method for recording a latency.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Method for obtaining the bucket a latency falls into.
+     *
+     * @param nanos the latency in nanoseconds.
+     * @return the index of the bucket.
+     */
+    private static int bucketIndex(long nanos) {
+        if (nanos <= MIN_NANOS) {
+            return 0;
+        }
+        int index = (int) Math.ceil(SUB_BUCKETS * Math.log((double) nanos / MIN_NANOS) / Math.log(2));
+        return Math.min(index, NUM_BUCKETS - 1);
+    }
+
+    /**
+     * Method for obtaining the upper bound of a bucket.
+     *
+     * @param index the index of the bucket.
+     * @return the largest latency in nanoseconds falling into the bucket.
+     */
+    private static long bucketUpperBound(int index) {
+        return (long) (MIN_NANOS * Math.pow(2, (double) index / SUB_BUCKETS));
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Method for obtaining the mean of the recorded latencies.
+     *
+     * @return the mean latency in milliseconds, or 0.0 if nothing was recorded.
+     */
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0.0 : toMillis(totalNanos.get()) / n;
+    }
+
+    /**
+     * Method for obtaining the maximum of the recorded latencies.
+     *
+     * @return the maximum latency in milliseconds.
+     */
+    public double getMaxMillis() {
+        return toMillis(maxNanos.get());
+    }
+
+    /**
+     * Method for obtaining a percentile of the recorded latencies. The result is the upper bound of the bucket the
+     * percentile falls into, but never more than the maximum recorded latency.
+     *
+     * @param quantile the quantile between 0.0 and 1.0, e.g. 0.99 for the 99th percentile.
+     * @return the latency in milliseconds at the given quantile, or 0.0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double quantile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && i < NUM_BUCKETS - 1) {
+                return Math.min(toMillis(bucketUpperBound(i)), getMaxMillis());
+            }
+        }
+        return getMaxMillis(); //the last bucket has no upper bound
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
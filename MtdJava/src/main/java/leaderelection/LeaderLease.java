@@ -0,0 +1,173 @@
+package leaderelection;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * Class representing the lease of an elected leader. The lease is an ephemeral znode held by the leader for a term of
+ * a number of moves or an amount of time. While the lease exists, the other candidates wait for it to be released
+ * instead of running elections. Since the znode is ephemeral, the lease is also released if the leader crashes.
+ * The holder watches its lease znode and its session, so it notices when it lost the lease, e.g. because its session
+ * expired and another candidate acquired the lease meanwhile, and ends its term instead of moving alongside the new
+ * holder.
+ */
+public class LeaderLease {
+    private static final String LEASE_PATH = "/lease";
+
+    private final ZooKeeper zooKeeper;
+    private final String holderName;
+    private final int termMoves;
+    private final long termMillis;
+    private long startTime;
+    private int moves = 0;
+    private volatile boolean lost = false;
+
+    /**
+     * Constructor for LeaderLease. A term limit of 0 means that the limit is not used.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param holderName the name of the candidate holding the lease, stored as the lease znode's data.
+     * @param termMoves the maximum number of moves in one term.
+     * @param termMillis the maximum duration of one term in milliseconds.
+     */
+    public LeaderLease(ZooKeeper zooKeeper, String holderName, int termMoves, long termMillis) {
+        this.zooKeeper = zooKeeper;
+        this.holderName = holderName;
+        this.termMoves = termMoves;
+        this.termMillis = termMillis;
+    }
+
+    /**
+     * Method for acquiring the lease. Waits for a lease held by another candidate to be released first.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public void acquire() throws InterruptedException, KeeperException {
+        while (true) {
+            try {
+                zooKeeper.create(LEASE_PATH, holderName.getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                        CreateMode.EPHEMERAL);
+                lost = false;
+                watchLease();
+                break;
+            } catch (KeeperException.NodeExistsException e) {
+                System.out.println("Lease is still held, waiting for its release...");
+                awaitRelease(zooKeeper);
+            }
+        }
+        startTime = System.currentTimeMillis();
+        moves = 0;
+        System.out.printf("Acquired the lease for a term of %d moves or %d ms%n", termMoves, termMillis);
+    }
+
+    /**
+     * Method for counting a move performed under this lease.
+     */
+    public void recordMove() {
+        moves++;
+    }
+
+    /**
+     * Method for checking whether the term of the lease is over.
+     *
+     * @return true if the number of moves or the duration of the term reached its limit or the lease was lost, and
+     * false otherwise.
+     */
+    public boolean isExpired() {
+        boolean movesExpired = termMoves > 0 && moves >= termMoves;
+        boolean timeExpired = termMillis > 0 && System.currentTimeMillis() - startTime >= termMillis;
+        return movesExpired || timeExpired || isLost();
+    }
+
+    /**
+     * Method for checking whether the lease may no longer be held. Once the session is disconnected, the lease znode
+     * may be deleted at any time when the session expires, so a disconnection also counts as a loss.
+     *
+     * @return true if the lease znode was deleted or the session was disconnected or expired, and false otherwise.
+     */
+    public boolean isLost() {
+        return lost || !zooKeeper.getState().isConnected();
+    }
+
+    /**
+     * Method for releasing the lease, allowing the other candidates to run the next election. Only deletes the lease
+     * znode if it is held by the current session, so a lease acquired by another candidate after a loss stays.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public void release() throws InterruptedException, KeeperException {
+        lost = true; //the term is over, the deletion of the lease znode is not reported as a loss
+        try {
+            Stat stat = zooKeeper.exists(LEASE_PATH, false);
+            if (stat == null || stat.getEphemeralOwner() != zooKeeper.getSessionId()) {
+                System.out.printf("%s is not held by this candidate!%n", LEASE_PATH);
+                return;
+            }
+            zooKeeper.delete(LEASE_PATH, stat.getVersion());
+            System.out.printf("Released the lease after %d moves%n", moves);
+        } catch (KeeperException.NoNodeException | KeeperException.BadVersionException e) {
+            System.out.printf("%s does not exist!%n", LEASE_PATH);
+        }
+    }
+
+    /**
+     * Method for watching the lease znode of the current session. The watch also reports the disconnection and
+     * expiry of the session. Marks the lease as lost if the znode is not held by the current session.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private void watchLease() throws InterruptedException, KeeperException {
+        Stat stat = zooKeeper.exists(LEASE_PATH, new Watcher() {
+            @Override
+            public void process(WatchedEvent watchedEvent) {
+                Event.KeeperState state = watchedEvent.getState();
+                if (watchedEvent.getType() == Event.EventType.NodeDeleted || state == Event.KeeperState.Expired
+                        || state == Event.KeeperState.Disconnected) {
+                    if (!lost) {
+                        System.out.printf("Lost the lease: %s%n", watchedEvent);
+                        lost = true;
+                    }
+                } else if (watchedEvent.getType() != Event.EventType.None && !lost) {
+                    try {
+                        watchLease(); //the watch fired for another change, set it again
+                    } catch (KeeperException e) {
+                        lost = true;
+                    } catch (InterruptedException e) {
+                        lost = true;
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        if (stat == null || stat.getEphemeralOwner() != zooKeeper.getSessionId()) {
+            lost = true;
+        }
+    }
+
+    /**
+     * Method for waiting until no lease is held. Watches the lease znode, so it is not read again until it changed.
+     * Returns immediately if no lease is held.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public static void awaitRelease(ZooKeeper zooKeeper) throws InterruptedException, KeeperException {
+        ChangeWatcher changeWatcher = new ChangeWatcher();
+        while (true) {
+            changeWatcher.reset();
+            if (zooKeeper.exists(LEASE_PATH, changeWatcher) == null) {
+                return;
+            }
+            changeWatcher.awaitChange(0);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package leaderelection;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of LoadProvider smoothing the load of another load provider. The load is sampled in the background
+ * into a fixed-size ring buffer, and an exponentially weighted moving average (EWMA) of the samples is reported
+ * instead of a single reading. A short CPU spike at registration time thus barely changes the reported load, which
+ * keeps leadership on the same candidates as long as the load does not change for longer.
+ */
+public class LoadEstimator implements LoadProvider {
+    public static final long DEFAULT_SAMPLE_MILLIS = 1000;
+
+    private final LoadProvider source;
+    private final double smoothing;
+    private final double[] samples;
+    private final ScheduledExecutorService sampler;
+    private int nextSample = 0;
+    private int sampleCount = 0;
+    private double smoothedLoad = Double.NaN;
+
+    /**
+     * Constructor for LoadEstimator.
+     *
+     * @param source the load provider whose load is sampled.
+     * @param windowSize the number of most recent samples kept for the percentiles.
+     * @param smoothing the weight of a new sample in the EWMA, between 0.0 exclusive and 1.0 inclusive. 1.0 disables
+     * the smoothing.
+     * @throws IllegalArgumentException if the window size or the smoothing is out of range.
+     */
+    public LoadEstimator(LoadProvider source, int windowSize, double smoothing) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Invalid load window size: " + windowSize);
+        }
+        if (!(smoothing > 0.0 && smoothing <= 1.0)) {
+            throw new IllegalArgumentException("Invalid load smoothing: " + smoothing);
+        }
+        this.source = source;
+        this.smoothing = smoothing;
+        samples = new double[windowSize];
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-estimator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Method for starting the background sampling of the source. The first sample is taken immediately.
+     *
+     * @param sampleMillis the interval between two samples in milliseconds.
+     * @return this load estimator.
+     */
+    public LoadEstimator start(long sampleMillis) {
+        sampler.scheduleAtFixedRate(this::sample, 0, sampleMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Method for sampling the load of the source. Failed readings of the source are skipped.
+     */
+    void sample() {
+        double load = source.getRelativeCpuLoad();
+        if (load >= 0.0) {
+            record(load);
+        }
+    }
+
+    /**
+     * Method for adding a sample to the window and the EWMA.
+     *
+     * @param load the sampled load.
+     */
+    public synchronized void record(double load) {
+        samples[nextSample] = load;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+        smoothedLoad = Double.isNaN(smoothedLoad) ? load : smoothing * load + (1.0 - smoothing) * smoothedLoad;
+    }
+
+    /**
+     * Method for obtaining the EWMA of the samples.
+     *
+     * @return the smoothed load, or NaN if there are no samples yet.
+     */
+    public synchronized double getSmoothedLoad() {
+        return smoothedLoad;
+    }
+
+    /**
+     * Method for obtaining a percentile of the samples in the window.
+     *
+     * @param quantile the quantile between 0.0 and 1.0.
+     * @return the sample at the given quantile, or NaN if there are no samples yet.
+     */
+    public synchronized double getPercentile(double quantile) {
+        if (sampleCount == 0) {
+            return Double.NaN;
+        }
+        double[] sortedSamples = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sortedSamples);
+        int index = (int) Math.ceil(quantile * sampleCount) - 1;
+        return sortedSamples[Math.max(0, Math.min(sampleCount - 1, index))];
+    }
+
+    /**
+     * Method for obtaining the smoothed relative CPU load. Samples the source right away if there is no sample yet.
+     *
+     * @return the smoothed load, or -1.0 if the source provided no load yet.
+     */
+    @Override
+    public double getRelativeCpuLoad() {
+        if (Double.isNaN(getSmoothedLoad())) {
+            sample();
+        }
+        double load = getSmoothedLoad();
+        return Double.isNaN(load) ? HeuristicElection.NULL_CPU_LOAD : load;
+    }
+
+    /**
+     * Method for obtaining the loads of the source with the smoothed CPU load in place of the CPU load.
+     *
+     * @return the loads in the order of ScoringModel.Resource.
+     */
+    @Override
+    public double[] getLoads() {
+        double[] loads = source.getLoads().clone();
+        loads[0] = getRelativeCpuLoad();
+        return loads;
+    }
+
+    /**
+     * Method for stopping the background sampling. The source is not closed, since it may be shared.
+     */
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package leaderelection;
+
+/**
+ * Interface for the sources of the load a candidate reports in heuristic elections.
+ */
+public interface LoadProvider extends AutoCloseable {
+    String METRICS_SERVER = "metrics-server";
+    String PROC_STAT = "proc-stat";
+
+    /**
+     * Method for obtaining the relative CPU load of the candidate's node.
+     *
+     * @return the relative CPU load between 0.0 and 1.0, or -1.0 if no load is available.
+     */
+    double getRelativeCpuLoad();
+
+    /**
+     * Method for obtaining the loads of all resources of the candidate's node that this provider measures.
+     *
+     * @return the loads in the order of ScoringModel.Resource, the first one being the relative CPU load. Loads that
+     * are not measured are NaN or missing at the end.
+     */
+    default double[] getLoads() {
+        return new double[]{getRelativeCpuLoad()};
+    }
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Method for creating the load provider of the given type.
+     *
+     * @param type the type of the load provider, either METRICS_SERVER or PROC_STAT.
+     * @param nodeName the name of the cluster node the candidate runs on.
+     * @return the started load provider.
+     * @throws IllegalArgumentException if the type is unknown.
+     */
+    static LoadProvider create(String type, String nodeName) {
+        switch (type) {
+            case METRICS_SERVER:
+                return NodeLoadCache.forNode(nodeName);
+            case PROC_STAT:
+                return new ProcStatLoadProvider().start();
+            default:
+                throw new IllegalArgumentException("Unknown load provider: " + type);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package leaderelection;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooKeeper;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class for waiting until the live members of the ensemble arrived at a znode, e.g. entered a barrier or registered
+ * for an election. Every candidate is a member through an ephemeral znode under /members as long as its session
+ * lives, so crashed candidates drop out after their session timeout and new candidates join when the StatefulSet
+ * scales. Both the children of the watched znode and the members are read with the same watch, so the wait ends as
+ * soon as the last expected member arrived or a missing member left.
+ */
+class MembershipWatcher extends ChangeWatcher {
+    static final String MEMBERS_PATH = "/members";
+
+    private final ZooKeeper zooKeeper;
+    private final String znodePath;
+    private final boolean registrationNames;
+    private final int quorum;
+    private final Collection<String> expectedHosts;
+    private int readCount = 0;
+
+    /**
+     * Constructor for MembershipWatcher.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param znodePath the path of the znode whose children are watched.
+     * @param registrationNames true if the children are registration znodes named hostname#UUID, false if they are
+     * named after the hostnames only, like barrier znodes.
+     * @param quorum the minimum number of children required, regardless of the members.
+     * @param expectedHosts the hostnames of the members that have to arrive if they are alive, or null to wait for all
+     * live members. An empty collection only waits for the quorum and does not read the members.
+     */
+    MembershipWatcher(ZooKeeper zooKeeper, String znodePath, boolean registrationNames, int quorum, Collection<String> expectedHosts) {
+        this.zooKeeper = zooKeeper;
+        this.znodePath = znodePath;
+        this.registrationNames = registrationNames;
+        this.quorum = quorum;
+        this.expectedHosts = expectedHosts;
+    }
+
+    /**
+     * Method for waiting until the quorum is reached and all expected live members arrived.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds, or 0 to wait without timeout.
+     * @return the list of children of the watched znode, or null if the timeout expired before.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    List<String> await(long timeoutMillis) throws InterruptedException, KeeperException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            reset();
+            List<String> children = zooKeeper.getChildren(znodePath, this);
+            readCount++;
+            if (isComplete(children)) {
+                return children;
+            }
+            if (!awaitChange(timeoutMillis == 0 ? 0 : deadline)) {
+                return null; //waited for too long, timeout and return null
+            }
+        }
+    }
+
+    /**
+     * Method for checking whether the quorum is reached and no expected live member is missing. Reads the members and
+     * sets a watch on them, unless the quorum is missing or no members are expected.
+     *
+     * @param children the current children of the watched znode.
+     * @return true if the wait is over, and false otherwise.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private boolean isComplete(List<String> children) throws InterruptedException, KeeperException {
+        if (children.size() < quorum) {
+            return false;
+        }
+        if (expectedHosts != null && expectedHosts.isEmpty()) {
+            return true;
+        }
+        Set<String> arrivedHosts = registrationNames ? getRegisteredHosts(children) : new HashSet<>(children);
+        for (String member : zooKeeper.getChildren(MEMBERS_PATH, this)) {
+            if ((expectedHosts == null || expectedHosts.contains(member)) && !arrivedHosts.contains(member)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method for obtaining the hostnames of candidates from the names of their registration znodes.
+     *
+     * @param registrationNames the names of the registration znodes.
+     * @return the set of hostnames.
+     */
+    static Set<String> getRegisteredHosts(List<String> registrationNames) {
+        Set<String> hosts = new HashSet<>();
+        for (String registrationName : registrationNames) {
+            hosts.add(registrationName.substring(0, Math.max(0, registrationName.lastIndexOf(Election.NAME_UUID_DELIMITER))));
+        }
+        return hosts;
+    }
+
+    /**
+     * Method for obtaining the number of times the children of the watched znode were read by this watcher.
+     *
+     * @return the number of reads of the watched znode's children.
+     */
+    int getReadCount() {
+        return readCount;
+    }
+}
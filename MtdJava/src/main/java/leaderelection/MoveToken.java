@@ -0,0 +1,122 @@
+package leaderelection;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Class representing the right to move the target in pipelined elections, where the election of the next leader runs
+ * while the current leader is still moving. The winner of an election reserves the next move with an ephemeral
+ * reservation znode, and exchanges the reservation for the ephemeral token znode once the previous move finished.
+ * Candidates only start the next election after the reservation was taken, and a winner only reserves a move once
+ * no other move is reserved, so at most one leader waits for the token while another one moves.
+ */
+public class MoveToken {
+    private static final String TOKEN_PATH = "/movetoken";
+    private static final String RESERVATION_PATH = "/nextmove";
+
+    private final ZooKeeper zooKeeper;
+    private final String holderName;
+    private boolean acquired = false;
+
+    /**
+     * Constructor for MoveToken. Reserves the next move for the given candidate. If the move after the current one is
+     * still reserved by the winner of an earlier election, waits until that reservation was taken or given up first.
+     * This happens if the losers of that election started the next one before the reservation was created, and
+     * finished it without the previous winner since a quorum of them was enough.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param holderName the name of the candidate reserving the move, stored as the znodes' data.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public MoveToken(ZooKeeper zooKeeper, String holderName) throws InterruptedException, KeeperException {
+        this.zooKeeper = zooKeeper;
+        this.holderName = holderName;
+        while (true) {
+            try {
+                zooKeeper.create(RESERVATION_PATH, holderName.getBytes(StandardCharsets.UTF_8),
+                        ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+                return;
+            } catch (KeeperException.NodeExistsException e) {
+                System.out.println("Next move still reserved, waiting for the reservation to be taken...");
+                awaitAbsence(zooKeeper, RESERVATION_PATH);
+            }
+        }
+    }
+
+    /**
+     * Method for acquiring the token. Waits for the previous move to finish, then takes the token and gives up the
+     * reservation in one transaction.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public void acquire() throws InterruptedException, KeeperException {
+        while (true) {
+            try {
+                zooKeeper.multi(List.of(
+                        Op.create(TOKEN_PATH, holderName.getBytes(StandardCharsets.UTF_8), ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                                CreateMode.EPHEMERAL),
+                        Op.delete(RESERVATION_PATH, -1)));
+                acquired = true;
+                return;
+            } catch (KeeperException.NodeExistsException e) {
+                System.out.println("Previous move still in progress, waiting for the move token...");
+                awaitAbsence(zooKeeper, TOKEN_PATH);
+            }
+        }
+    }
+
+    /**
+     * Method for releasing the token after the move, or for giving up the reservation if the token was never
+     * acquired.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public void release() throws InterruptedException, KeeperException {
+        try {
+            zooKeeper.delete(acquired ? TOKEN_PATH : RESERVATION_PATH, -1);
+        } catch (KeeperException.NoNodeException e) {
+            System.out.printf("%s does not exist!%n", acquired ? TOKEN_PATH : RESERVATION_PATH);
+        }
+        acquired = false;
+    }
+
+    /**
+     * Method for waiting until the reserved move started, or its reservation was given up. Returns immediately if no
+     * move is reserved.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public static void awaitReservationTaken(ZooKeeper zooKeeper) throws InterruptedException, KeeperException {
+        awaitAbsence(zooKeeper, RESERVATION_PATH);
+    }
+
+    /**
+     * Method for waiting until a znode does not exist, using an exists watch.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param znodePath the path of the znode.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private static void awaitAbsence(ZooKeeper zooKeeper, String znodePath) throws InterruptedException, KeeperException {
+        ChangeWatcher changeWatcher = new ChangeWatcher();
+        while (true) {
+            changeWatcher.reset();
+            if (zooKeeper.exists(znodePath, changeWatcher) == null) {
+                return;
+            }
+            changeWatcher.awaitChange(0);
+        }
+    }
+}
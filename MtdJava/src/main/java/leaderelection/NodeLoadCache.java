@@ -0,0 +1,276 @@
+package leaderelection;
+
+import io.kubernetes.client.custom.NodeMetrics;
+import io.kubernetes.client.custom.NodeMetricsList;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.Configuration;
+import io.kubernetes.client.util.generic.GenericKubernetesApi;
+import model.kubernetes.Node;
+import model.kubernetes.exception.NodeNotFoundException;
+import model.kubernetes.exception.PodNotFoundException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of LoadProvider based on the metrics server, caching the CPU usage and the allocatable CPU of a single
+ * cluster node. The values are refreshed by a background thread at the scrape cadence of the metrics server, so reading
+ * the load of the node is an in-memory read instead of two API round trips. Only the metrics of the cached node are
+ * fetched, not those of the whole cluster. The allocatable CPU rarely changes and is refreshed less often than the
+ * usage. Besides the CPU load, the cache holds the memory load and the number of pods of the node, and the latency
+ * of the usage request as a measure of the recent API latency.
+ */
+public class NodeLoadCache implements LoadProvider {
+    public static final long DEFAULT_REFRESH_MILLIS = 15_000; //default scrape interval of the metrics server
+    private static final int ALLOCATABLE_REFRESH_INTERVAL = 20; //number of usage refreshes per allocatable refresh
+    private static final int STALE_REFRESH_INTERVALS = 3; //number of missed refreshes after which the load is stale
+    private static final Map<String, NodeLoadCache> NODE_CACHES = new ConcurrentHashMap<>();
+
+    private final String nodeName;
+    private final long refreshMillis;
+    private final ResourceFetcher cpuUsageFetcher;
+    private final ResourceFetcher allocatableCpuFetcher;
+    private final ResourceFetcher memoryLoadFetcher;
+    private final ResourceFetcher podCountFetcher;
+    private final ScheduledExecutorService refresher;
+    private volatile double cpuUsage = Double.NaN;
+    private volatile double allocatableCpu = Double.NaN;
+    private volatile double memoryLoad = Double.NaN;
+    private volatile double podCount = Double.NaN;
+    private volatile double apiLatencyMillis = Double.NaN;
+    private volatile long lastRefreshMillis = 0;
+    private int refreshes = 0;
+
+    /**
+     * Interface for fetching a resource value of the cached node.
+     */
+    @FunctionalInterface
+    public interface ResourceFetcher {
+        double fetch() throws Exception;
+    }
+
+    /**
+     * Constructor for NodeLoadCache fetching the values of the given node from the cluster.
+     *
+     * @param nodeName the name of the cluster node.
+     */
+    public NodeLoadCache(String nodeName) {
+        this(nodeName, new MetricsServerFetcher(nodeName));
+    }
+
+    private NodeLoadCache(String nodeName, MetricsServerFetcher fetcher) {
+        this(nodeName, DEFAULT_REFRESH_MILLIS, fetcher::fetchCpuUsage, fetcher::fetchAllocatableCpu,
+                fetcher::fetchMemoryLoad, fetcher::fetchPodCount);
+    }
+
+    /**
+     * Constructor for NodeLoadCache with custom fetchers of the CPU values only, e.g. to run outside of a cluster.
+     *
+     * @param nodeName the name of the cluster node.
+     * @param refreshMillis the interval between two refreshes in milliseconds.
+     * @param cpuUsageFetcher the fetcher of the absolute CPU usage of the node.
+     * @param allocatableCpuFetcher the fetcher of the allocatable CPU of the node.
+     */
+    public NodeLoadCache(String nodeName, long refreshMillis, ResourceFetcher cpuUsageFetcher,
+                         ResourceFetcher allocatableCpuFetcher) {
+        this(nodeName, refreshMillis, cpuUsageFetcher, allocatableCpuFetcher, () -> Double.NaN, () -> Double.NaN);
+    }
+
+    /**
+     * Constructor for NodeLoadCache with custom fetchers, e.g. to run outside of a cluster.
+     *
+     * @param nodeName the name of the cluster node.
+     * @param refreshMillis the interval between two refreshes in milliseconds.
+     * @param cpuUsageFetcher the fetcher of the absolute CPU usage of the node.
+     * @param allocatableCpuFetcher the fetcher of the allocatable CPU of the node.
+     * @param memoryLoadFetcher the fetcher of the relative memory load of the node, called after the CPU usage.
+     * @param podCountFetcher the fetcher of the number of pods on the node.
+     */
+    public NodeLoadCache(String nodeName, long refreshMillis, ResourceFetcher cpuUsageFetcher,
+                         ResourceFetcher allocatableCpuFetcher, ResourceFetcher memoryLoadFetcher,
+                         ResourceFetcher podCountFetcher) {
+        this.nodeName = nodeName;
+        this.refreshMillis = refreshMillis;
+        this.cpuUsageFetcher = cpuUsageFetcher;
+        this.allocatableCpuFetcher = allocatableCpuFetcher;
+        this.memoryLoadFetcher = memoryLoadFetcher;
+        this.podCountFetcher = podCountFetcher;
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-load-cache-" + nodeName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Method for obtaining the started cache of a cluster node, shared by all users in this process.
+     *
+     * @param nodeName the name of the cluster node.
+     * @return the cache of the node.
+     */
+    public static NodeLoadCache forNode(String nodeName) {
+        return NODE_CACHES.computeIfAbsent(nodeName, name -> new NodeLoadCache(name).start());
+    }
+
+    /**
+     * Method for starting the background refresh of the cached values. The first refresh runs immediately.
+     *
+     * @return this cache.
+     */
+    public NodeLoadCache start() {
+        refresher.scheduleAtFixedRate(this::refresh, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Method for fetching the values of the node. A failed fetch keeps the previous values, which become stale.
+     */
+    synchronized void refresh() {
+        try {
+            if (refreshes % ALLOCATABLE_REFRESH_INTERVAL == 0 || Double.isNaN(allocatableCpu)) {
+                allocatableCpu = allocatableCpuFetcher.fetch();
+            }
+            long requestStart = System.nanoTime();
+            cpuUsage = cpuUsageFetcher.fetch();
+            apiLatencyMillis = (System.nanoTime() - requestStart) / 1e6;
+            lastRefreshMillis = System.currentTimeMillis();
+            memoryLoad = fetchOptional(memoryLoadFetcher);
+            podCount = fetchOptional(podCountFetcher);
+            refreshes++;
+        } catch (Exception e) {
+            System.out.printf("Catching %s caused by fetching the load of node %s:%n", e.getClass(), nodeName);
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Method for fetching a value that only matters to the scoring of multiple resources. A failed fetch does not fail
+     * the refresh of the CPU values.
+     *
+     * @param fetcher the fetcher of the value.
+     * @return the fetched value, or NaN if the fetch failed.
+     */
+    private double fetchOptional(ResourceFetcher fetcher) {
+        try {
+            return fetcher.fetch();
+        } catch (Exception e) {
+            System.out.printf("Catching %s caused by fetching a resource of node %s:%n", e.getClass(), nodeName);
+            System.out.println(e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Method for obtaining the relative CPU load of the node from the cache. Only fetches the values if the cache was
+     * never refreshed successfully, e.g. right after it was started.
+     *
+     * @return the relative CPU load of the node, or -1.0 if no values could be fetched yet.
+     */
+    @Override
+    public double getRelativeCpuLoad() {
+        if (lastRefreshMillis == 0) {
+            refresh();
+            if (lastRefreshMillis == 0) {
+                System.out.printf("Node load not present, return null load value: %s%n", HeuristicElection.NULL_CPU_LOAD);
+                return HeuristicElection.NULL_CPU_LOAD;
+            }
+        }
+        if (isStale()) {
+            System.out.printf("Node load of %s is stale, last refreshed %d ms ago%n", nodeName, getStalenessMillis());
+        }
+        return cpuUsage / allocatableCpu;
+    }
+
+    /**
+     * Method for obtaining the loads of the node from the cache.
+     *
+     * @return the CPU load, memory load, number of pods and API latency in milliseconds of the node.
+     */
+    @Override
+    public double[] getLoads() {
+        return new double[]{getRelativeCpuLoad(), memoryLoad, podCount, apiLatencyMillis};
+    }
+
+    /**
+     * Method for obtaining the age of the cached values.
+     *
+     * @return the time since the last successful refresh in milliseconds, or Long.MAX_VALUE if there was none.
+     */
+    public long getStalenessMillis() {
+        long lastRefresh = lastRefreshMillis;
+        return lastRefresh == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - lastRefresh;
+    }
+
+    /**
+     * Method for checking whether the cached values missed several refreshes, e.g. because the metrics server is not
+     * reachable.
+     *
+     * @return true if the cached values are stale, and false otherwise.
+     */
+    public boolean isStale() {
+        return getStalenessMillis() > STALE_REFRESH_INTERVALS * refreshMillis;
+    }
+
+    /**
+     * Class fetching the values of a node from the cluster. The memory load is computed from the node metrics of the
+     * preceding CPU usage request, so each refresh requests the metrics of the node only once.
+     */
+    private static class MetricsServerFetcher {
+        private final String nodeName;
+        private Node node;
+        private NodeMetrics nodeMetrics;
+
+        MetricsServerFetcher(String nodeName) {
+            this.nodeName = nodeName;
+        }
+
+        /**
+         * Method for fetching the metrics of the node from the metrics server.
+         *
+         * @return the CPU usage of the node in cores.
+         * @throws ApiException
+         */
+        double fetchCpuUsage() throws ApiException {
+            nodeMetrics = new GenericKubernetesApi<>(NodeMetrics.class, NodeMetricsList.class,
+                    "metrics.k8s.io", "v1beta1", "nodes", Configuration.getDefaultApiClient())
+                    .get(nodeName)
+                    .throwsApiException()
+                    .getObject();
+            return nodeMetrics.getUsage().get("cpu").getNumber().doubleValue();
+        }
+
+        /**
+         * Method for fetching the node and its allocatable CPU.
+         *
+         * @return the allocatable CPU of the node in cores.
+         * @throws NodeNotFoundException
+         */
+        double fetchAllocatableCpu() throws NodeNotFoundException {
+            node = new Node(nodeName);
+            return node.getAllocatableCpu();
+        }
+
+        /**
+         * @return the memory usage of the latest node metrics relative to the allocatable memory of the node.
+         */
+        double fetchMemoryLoad() {
+            return nodeMetrics.getUsage().get("memory").getNumber().doubleValue() / node.getAllocatableMemory();
+        }
+
+        /**
+         * @return the number of pods on the node.
+         * @throws PodNotFoundException
+         */
+        double fetchPodCount() throws PodNotFoundException {
+            return node.getPods().size();
+        }
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
@@ -15,12 +15,23 @@ public class Participant implements Comparable<Participant> {
      * Constructor for a Participant. Makes sure that the load value cannot be greater than 1.0.
      * @param name the name of the participant.
      * @param uuidStr the string version of the participant's UUID.
-     * @param load the load value associated with the participant.
+     * @param load the load value or load score associated with the participant.
      * @param randomWeight the randomWeight used in this election.
      */
     public Participant(String name, String uuidStr, double load, double randomWeight) {
+        this(name, UUID.fromString(uuidStr), load, randomWeight);
+    }
+
+    /**
+     * Constructor for a Participant. Makes sure that the load value cannot be greater than 1.0.
+     * @param name the name of the participant.
+     * @param identifier the participant's UUID.
+     * @param load the load value or load score associated with the participant.
+     * @param randomWeight the randomWeight used in this election.
+     */
+    public Participant(String name, UUID identifier, double load, double randomWeight) {
         this.name = name;
-        identifier = UUID.fromString(uuidStr);
+        this.identifier = identifier;
         if (load > 1.0) {
             load = 1.0;
         }
@@ -66,7 +77,15 @@ public class Participant implements Comparable<Participant> {
         return randomWeight * randomPart + (1.0 - randomWeight) * load;
     }
 
+    public String getName() {
+        return name;
+    }
+
     public UUID getIdentifier() {
         return identifier;
     }
+
+    public double getLoad() {
+        return load;
+    }
 }
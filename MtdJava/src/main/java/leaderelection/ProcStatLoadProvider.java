@@ -0,0 +1,170 @@
+package leaderelection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of LoadProvider sampling the CPU time counters of the node from /proc/stat. A background thread
+ * computes the share of non-idle CPU time between two consecutive samples and publishes it through a volatile field,
+ * so reading the load never blocks and needs no API request. The load is at most one sampling interval old, instead of
+ * the scrape lag of the metrics server. Until two samples were taken, the one-minute load average from /proc/loadavg
+ * per available processor is used. The memory load is read from /proc/meminfo on demand.
+ */
+public class ProcStatLoadProvider implements LoadProvider {
+    public static final long DEFAULT_SAMPLE_MILLIS = 500;
+    private static final int IDLE_FIELD = 4; //index of the idle time in the cpu line, iowait follows it
+    private static final int COUNTED_FIELDS = 8; //user, nice, system, idle, iowait, irq, softirq and steal time
+
+    private final Path procStatPath;
+    private final Path loadAvgPath;
+    private final Path memInfoPath;
+    private final long sampleMillis;
+    private final ScheduledExecutorService sampler;
+    private volatile double load = Double.NaN;
+    private long previousTotalTime = -1;
+    private long previousIdleTime;
+
+    /**
+     * Constructor for ProcStatLoadProvider reading the proc filesystem of the node.
+     */
+    public ProcStatLoadProvider() {
+        this(Paths.get("/proc"), DEFAULT_SAMPLE_MILLIS);
+    }
+
+    /**
+     * Constructor for ProcStatLoadProvider with a custom proc filesystem location.
+     *
+     * @param procRoot the directory containing the stat, loadavg and meminfo files.
+     * @param sampleMillis the interval between two samples in milliseconds.
+     */
+    public ProcStatLoadProvider(Path procRoot, long sampleMillis) {
+        procStatPath = procRoot.resolve("stat");
+        loadAvgPath = procRoot.resolve("loadavg");
+        memInfoPath = procRoot.resolve("meminfo");
+        this.sampleMillis = sampleMillis;
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "proc-stat-load-provider");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Method for starting the background sampling. The first sample is taken immediately.
+     *
+     * @return this load provider.
+     */
+    public ProcStatLoadProvider start() {
+        sampler.scheduleAtFixedRate(this::sample, 0, sampleMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Method for taking a sample of the CPU time counters and updating the load from the difference to the previous
+     * sample.
+     */
+    synchronized void sample() {
+        try {
+            String[] fields = readFirstLine(procStatPath).trim().split("\\s+");
+            long totalTime = 0;
+            for (int i = 1; i <= COUNTED_FIELDS && i < fields.length; i++) {
+                totalTime += Long.parseLong(fields[i]);
+            }
+            long idleTime = Long.parseLong(fields[IDLE_FIELD]) + Long.parseLong(fields[IDLE_FIELD + 1]);
+            if (previousTotalTime >= 0 && totalTime > previousTotalTime) {
+                long elapsedTime = totalTime - previousTotalTime;
+                load = (double) (elapsedTime - (idleTime - previousIdleTime)) / elapsedTime;
+            }
+            previousTotalTime = totalTime;
+            previousIdleTime = idleTime;
+        } catch (IOException | RuntimeException e) {
+            System.out.printf("Catching %s caused by sampling %s:%n", e.getClass(), procStatPath);
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Method for obtaining the relative CPU load of the node from the latest samples.
+     *
+     * @return the relative CPU load of the node, or -1.0 if no load could be read.
+     */
+    @Override
+    public double getRelativeCpuLoad() {
+        double sampledLoad = load;
+        if (!Double.isNaN(sampledLoad)) {
+            return sampledLoad;
+        }
+        try {
+            double loadAverage = Double.parseDouble(readFirstLine(loadAvgPath).trim().split("\\s+")[0]);
+            return loadAverage / Runtime.getRuntime().availableProcessors();
+        } catch (IOException | RuntimeException e) {
+            System.out.printf("Catching %s caused by reading %s:%n", e.getClass(), loadAvgPath);
+            System.out.println(e.getMessage());
+            System.out.printf("Return null load value: %s%n", HeuristicElection.NULL_CPU_LOAD);
+            return HeuristicElection.NULL_CPU_LOAD;
+        }
+    }
+
+    /**
+     * Method for obtaining the CPU load from the latest samples and the current memory load of the node.
+     *
+     * @return the CPU load and the memory load, the latter is NaN if it cannot be read.
+     */
+    @Override
+    public double[] getLoads() {
+        return new double[]{getRelativeCpuLoad(), readMemoryLoad()};
+    }
+
+    /**
+     * Method for reading the share of the node's memory that is not available for new processes.
+     *
+     * @return the memory load, or NaN if it cannot be read.
+     */
+    private double readMemoryLoad() {
+        double totalMemory = Double.NaN;
+        double availableMemory = Double.NaN;
+        try (BufferedReader reader = Files.newBufferedReader(memInfoPath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\\s+");
+                if (fields[0].equals("MemTotal:")) {
+                    totalMemory = Double.parseDouble(fields[1]);
+                } else if (fields[0].equals("MemAvailable:")) {
+                    availableMemory = Double.parseDouble(fields[1]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.printf("Catching %s caused by reading %s:%n", e.getClass(), memInfoPath);
+            System.out.println(e.getMessage());
+        }
+        return 1.0 - availableMemory / totalMemory;
+    }
+
+    /**
+     * Method for reading the first line of a file.
+     *
+     * @param path the path of the file.
+     * @return the first line of the file.
+     * @throws IOException if the file cannot be read or is empty.
+     */
+    private static String readFirstLine(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException(path + " is empty");
+            }
+            return line;
+        }
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
@@ -1,8 +1,6 @@
 package leaderelection;
 
-import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
-import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
 
 /**
@@ -23,16 +21,43 @@ public class RandomElection extends Election {
     }
 
     /**
-     * Method for registering a candidate without a corresponding load value.
+     * Constructor for RandomElection with an explicit hostname. Calls the Election constructor with randomWeight 1.0.
      *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param hostName the hostname identifying the candidate in the election.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public RandomElection(ZooKeeper zooKeeper, int ensembleSize, String hostName) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, 1.0, hostName);
+    }
+
+    /**
+     * Constructor for RandomElection with an injected candidate identity. Calls the Election constructor with
+     * randomWeight 1.0.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
      * @throws InterruptedException
      * @throws KeeperException
      */
-    public void register() throws InterruptedException, KeeperException {
-        zooKeeper.create(getMyIdPath(), getHostName().getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+    public RandomElection(ZooKeeper zooKeeper, int ensembleSize, CandidateIdentity candidateIdentity) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, 1.0, candidateIdentity);
     }
 
-    public void unregister() throws InterruptedException, KeeperException {
-        zooKeeper.delete(getMyIdPath(), -1);
+    /**
+     * Constructor for RandomElection in a target group. Calls the Election constructor with randomWeight 1.0.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @param group the name of the target group, or null for the single election without groups.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public RandomElection(ZooKeeper zooKeeper, int ensembleSize, CandidateIdentity candidateIdentity, String group) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, 1.0, candidateIdentity, group);
     }
 }
@@ -0,0 +1,64 @@
+package leaderelection;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooKeeper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class for collecting the registrations of an election. Instead of reading the registrations in a loop, a child watch
+ * is registered on the election znode, and the registrations are only read again when the watch reports a change.
+ */
+public class RegistrationCollector {
+    private final MembershipWatcher membershipWatcher;
+
+    /**
+     * Constructor for RegistrationCollector.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param electionPath the path of the znode under which the candidates register.
+     * @param quorum the number of registrations required for the election to proceed.
+     */
+    public RegistrationCollector(ZooKeeper zooKeeper, String electionPath, int quorum) {
+        this(zooKeeper, electionPath, quorum, Set.of());
+    }
+
+    /**
+     * Constructor for RegistrationCollector waiting for the candidates of the current round. Besides the quorum, every
+     * given candidate has to be registered, unless it is no longer a live member of the ensemble.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param electionPath the path of the znode under which the candidates register.
+     * @param quorum the number of registrations required for the election to proceed.
+     * @param expectedHosts the hostnames of the candidates taking part in the current round.
+     */
+    public RegistrationCollector(ZooKeeper zooKeeper, String electionPath, int quorum, Collection<String> expectedHosts) {
+        membershipWatcher = new MembershipWatcher(zooKeeper, electionPath, true, quorum, expectedHosts);
+    }
+
+    /**
+     * Method for waiting until the quorum of candidates, and every expected candidate still alive, is registered.
+     * Blocks on the child watch between reads, so no CPU time is used and no reads are issued while the registrations
+     * do not change.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds, or 0 to wait without timeout.
+     * @return the list of registered candidates' znode names, or null if the timeout expired before the quorum
+     * was reached.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public List<String> collect(long timeoutMillis) throws InterruptedException, KeeperException {
+        return membershipWatcher.await(timeoutMillis);
+    }
+
+    /**
+     * Method for obtaining the number of times the registrations were read by this collector.
+     *
+     * @return the number of reads of the election znode's children.
+     */
+    public int getReadCount() {
+        return membershipWatcher.getReadCount();
+    }
+}
@@ -0,0 +1,130 @@
+package leaderelection;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Class representing the registration of a candidate, stored as the data of its registration znode.
+ * The record is encoded in a compact, versioned binary format:
+ * <pre>
+ * byte    marker, always 0, which never occurs in the hostname data of old-style registrations
+ * byte    version
+ * long    most significant bits of the UUID
+ * long    least significant bits of the UUID
+ * long    timestamp in milliseconds since the epoch
+ * short   length of the node name in bytes, followed by the UTF-8 encoded node name
+ * byte    number of load values, followed by the load values as doubles
+ * </pre>
+ */
+public class RegistrationRecord {
+    private static final byte MARKER = 0;
+    private static final byte VERSION = 1;
+    private static final int FIXED_LENGTH = 2 + 3 * Long.BYTES + Short.BYTES + 1;
+
+    private final UUID identifier;
+    private final String nodeName;
+    private final double[] loads;
+    private final long timestamp;
+
+    /**
+     * Constructor for RegistrationRecord.
+     *
+     * @param identifier the UUID of the candidate in the election.
+     * @param nodeName the name of the Kubernetes node the candidate runs on.
+     * @param loads the load values of the candidate's node, the first one is the CPU load.
+     * @param timestamp the time of the registration in milliseconds since the epoch.
+     */
+    public RegistrationRecord(UUID identifier, String nodeName, double[] loads, long timestamp) {
+        this.identifier = identifier;
+        this.nodeName = nodeName == null ? "" : nodeName;
+        this.loads = loads;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Method for encoding the record in the binary format.
+     *
+     * @return the encoded record.
+     */
+    public byte[] encode() {
+        byte[] nodeNameBytes = nodeName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_LENGTH + nodeNameBytes.length + loads.length * Double.BYTES);
+        buffer.put(MARKER)
+                .put(VERSION)
+                .putLong(identifier.getMostSignificantBits())
+                .putLong(identifier.getLeastSignificantBits())
+                .putLong(timestamp)
+                .putShort((short) nodeNameBytes.length)
+                .put(nodeNameBytes)
+                .put((byte) loads.length);
+        for (double load : loads) {
+            buffer.putDouble(load);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Method for decoding a record. The fields are read directly from the given array without copying it.
+     * Records of an unknown version, e.g. written by a newer candidate during a rolling upgrade, and truncated records
+     * are not decoded, so the caller can fall back to the information in the znode name.
+     *
+     * @param data the data of a registration znode.
+     * @return the decoded record, or null if the data is not in the binary format, e.g. from an old-style
+     * registration, of an unknown version or truncated.
+     */
+    public static RegistrationRecord decode(byte[] data) {
+        if (data == null || data.length < FIXED_LENGTH || data[0] != MARKER || data[1] != VERSION) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.position(2); //marker and version
+        UUID identifier = new UUID(buffer.getLong(), buffer.getLong());
+        long timestamp = buffer.getLong();
+        int nodeNameLength = buffer.getShort() & 0xFFFF;
+        if (buffer.remaining() < nodeNameLength + 1) {
+            return null;
+        }
+        String nodeName = new String(data, buffer.position(), nodeNameLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + nodeNameLength);
+        double[] loads = new double[buffer.get() & 0xFF];
+        if (buffer.remaining() < loads.length * Double.BYTES) {
+            return null;
+        }
+        for (int i = 0; i < loads.length; i++) {
+            loads[i] = buffer.getDouble();
+        }
+        return new RegistrationRecord(identifier, nodeName, loads, timestamp);
+    }
+
+    public UUID getIdentifier() {
+        return identifier;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public double[] getLoads() {
+        return loads;
+    }
+
+    /**
+     * Method for obtaining the CPU load, the first value of the load vector.
+     *
+     * @return the CPU load, or 0.5 if the record has no load values.
+     */
+    public double getCpuLoad() {
+        return loads.length > 0 ? loads[0] : HeuristicElection.HALF_CPU_LOAD;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s@%s%s", identifier, nodeName, Arrays.toString(loads));
+    }
+}
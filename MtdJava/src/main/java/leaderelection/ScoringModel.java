@@ -0,0 +1,147 @@
+package leaderelection;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class computing the load score of the participants of a heuristic election from their registered load vectors.
+ * The score is the weighted mean of the normalized resource loads. The CPU and memory loads are already relative to
+ * the capacity of a node, the pod count and the API latency are normalized by their maximum among the participants.
+ * Since every candidate reads the same registrations, every candidate computes the same scores and the same winner.
+ */
+public class ScoringModel {
+    /**
+     * The resources of a load vector, in the order of the vector.
+     */
+    public enum Resource {
+        CPU("cpu", true),
+        MEMORY("memory", true),
+        PODS("pods", false),
+        API_LATENCY("apiLatency", false);
+
+        private final String key;
+        private final boolean relative;
+
+        Resource(String key, boolean relative) {
+            this.key = key;
+            this.relative = relative;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Method for obtaining the resource with the given settings key.
+         *
+         * @param key the key of the resource in the scoring weights.
+         * @return the resource.
+         * @throws IllegalArgumentException if there is no resource with the given key.
+         */
+        public static Resource fromKey(String key) {
+            for (Resource resource : values()) {
+                if (resource.key.equals(key)) {
+                    return resource;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scoring resource: " + key);
+        }
+    }
+
+    public static final ScoringModel CPU_ONLY = new ScoringModel(Map.of(Resource.CPU, 1.0));
+
+    private final double[] weights = new double[Resource.values().length];
+    private final double totalWeight;
+
+    /**
+     * Constructor for ScoringModel.
+     *
+     * @param weights the weights of the resources, resources without weight are ignored.
+     * @throws IllegalArgumentException if a weight is negative or all weights are zero.
+     */
+    public ScoringModel(Map<Resource, Double> weights) {
+        double sum = 0.0;
+        for (Map.Entry<Resource, Double> weight : weights.entrySet()) {
+            if (!(weight.getValue() >= 0.0)) {
+                throw new IllegalArgumentException("Invalid scoring weight for " + weight.getKey().getKey());
+            }
+            this.weights[weight.getKey().ordinal()] = weight.getValue();
+            sum += weight.getValue();
+        }
+        if (sum <= 0.0) {
+            throw new IllegalArgumentException("At least one scoring weight must be positive");
+        }
+        totalWeight = sum;
+    }
+
+    /**
+     * Method for creating a scoring model from the weights in the settings.
+     *
+     * @param weights the weights keyed by the settings keys of the resources.
+     * @return the scoring model.
+     * @throws IllegalArgumentException if a key is unknown or the weights are invalid.
+     */
+    public static ScoringModel fromSettings(Map<String, Double> weights) {
+        Map<Resource, Double> resourceWeights = new EnumMap<>(Resource.class);
+        weights.forEach((key, weight) -> resourceWeights.put(Resource.fromKey(key), weight));
+        return new ScoringModel(resourceWeights);
+    }
+
+    /**
+     * Method for computing the scores of the participants of an election. Missing or unknown loads count as half
+     * loaded, as for registrations without load, and the participants with a load are normalized among each other.
+     *
+     * @param loadVectors the registered load vectors of the participants.
+     * @return the scores of the participants, in the order of the given load vectors.
+     */
+    public double[] score(List<double[]> loadVectors) {
+        double[] scores = new double[loadVectors.size()];
+        for (Resource resource : Resource.values()) {
+            double weight = weights[resource.ordinal()];
+            if (weight == 0.0) {
+                continue;
+            }
+            double maximum = 0.0;
+            if (!resource.relative) {
+                for (double[] loads : loadVectors) {
+                    double load = getLoad(loads, resource);
+                    if (!Double.isNaN(load)) { //a missing load would make the maximum NaN for all participants
+                        maximum = Math.max(maximum, load);
+                    }
+                }
+            }
+            for (int i = 0; i < scores.length; i++) {
+                double load = getLoad(loadVectors.get(i), resource);
+                double normalizedLoad;
+                if (Double.isNaN(load)) {
+                    normalizedLoad = HeuristicElection.HALF_CPU_LOAD;
+                } else if (resource.relative) {
+                    normalizedLoad = load;
+                } else {
+                    normalizedLoad = maximum > 0.0 ? load / maximum : 0.0;
+                }
+                scores[i] += weight * normalizedLoad;
+            }
+        }
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] /= totalWeight;
+        }
+        return scores;
+    }
+
+    /**
+     * Method for obtaining the load of a resource from a load vector.
+     *
+     * @param loads the load vector.
+     * @param resource the resource.
+     * @return the load of the resource, or NaN if the vector has no valid value for it.
+     */
+    private static double getLoad(double[] loads, Resource resource) {
+        int index = resource.ordinal();
+        if (index >= loads.length || loads[index] < 0.0) {
+            return Double.NaN; //negative loads are failed measurements, like the null CPU load
+        }
+        return loads[index];
+    }
+}
@@ -0,0 +1,307 @@
+package leaderelection;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the Election class without global barriers, for large ensembles.
+ * Candidates queue up as EPHEMERAL_SEQUENTIAL znodes whose registration record holds what is needed to compute their
+ * order number.
+ * Each candidate only watches its predecessor in the queue and its own grant znode. The candidate at the head of the
+ * queue acts as arbiter: once the previous leader finished, it reads the queued candidates, grants leadership to the
+ * one with the lowest order number and rejoins the queue at its tail. The winner accepts the grant by creating the
+ * ephemeral leader znode, which it deletes when it runs for leader again after its move.
+ */
+public class SequentialElection extends Election {
+    protected static final String QUEUE_PATH = "/seqelection";
+    protected static final String GRANT_PATH = "/seqgrants";
+    protected static final String LEADER_PATH = "/seqleader";
+    private static final String SEQUENCE_DELIMITER = "-";
+    private static final int SEQUENCE_LENGTH = 10;
+
+    private String myQueueNodeName;
+
+    /**
+     * Constructor for SequentialElection.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble, not needed by this type of election.
+     * @param randomWeight the weight of the random component in the election.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public SequentialElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight);
+    }
+
+    /**
+     * Constructor for SequentialElection with an explicit hostname.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble, not needed by this type of election.
+     * @param randomWeight the weight of the random component in the election.
+     * @param hostName the hostname identifying the candidate in the election.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public SequentialElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, String hostName) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight, hostName);
+    }
+
+    /**
+     * Constructor for SequentialElection with an injected candidate identity.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public SequentialElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, CandidateIdentity candidateIdentity) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight, candidateIdentity);
+    }
+
+    /**
+     * Constructor for SequentialElection in a target group.
+     *
+     * @param zooKeeper a reference to the local ZooKeeper server.
+     * @param ensembleSize the number of candidates in the ensemble.
+     * @param randomWeight the weight of the random component in the election.
+     * @param candidateIdentity the hostname, node name and load source of the candidate.
+     * @param group the name of the target group, or null for the single election without groups.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    public SequentialElection(ZooKeeper zooKeeper, int ensembleSize, double randomWeight, CandidateIdentity candidateIdentity, String group) throws InterruptedException, KeeperException {
+        super(zooKeeper, ensembleSize, randomWeight, candidateIdentity, group);
+    }
+
+    @Override
+    protected String[] getBootstrapPaths() {
+        return new String[]{QUEUE_PATH, GRANT_PATH};
+    }
+
+    /**
+     * Method for creating the path prefix of the current candidate's queue znode, to which ZooKeeper appends the
+     * sequence number.
+     *
+     * @return the path prefix of the queue znode.
+     */
+    @Override
+    protected String createRegistrationPath() {
+        return inGroup(QUEUE_PATH) + "/" + hostName + NAME_UUID_DELIMITER + identity + SEQUENCE_DELIMITER;
+    }
+
+    /**
+     * Method for fetching the current load. The load is only fetched if it has an influence on the order number.
+     *
+     * @return the relative CPU load of the current node, or no load values.
+     */
+    @Override
+    protected double[] measureLoads() {
+        return randomWeight < 1.0 ? new double[]{loadSource.getAsDouble()} : new double[0];
+    }
+
+    /**
+     * Method for performing all steps of an election. Ends a previous leadership of the current candidate and queues
+     * up in the same transaction, then waits until the candidate is either granted leadership or becomes the arbiter
+     * at the head of the queue.
+     *
+     * @return true if the current candidate won, and false otherwise.
+     */
+    @Override
+    public boolean waitForResult() throws InterruptedException, KeeperException {
+        long electionStart = System.nanoTime();
+        enqueue();
+        long phaseStart = metrics.recordPhase(ElectionMetrics.Phase.ENQUEUE, electionStart);
+        ChangeWatcher changeWatcher = new ChangeWatcher();
+
+        boolean result;
+        while (true) {
+            changeWatcher.reset();
+            if (zooKeeper.exists(getMyGrantPath(), changeWatcher) != null) {
+                phaseStart = metrics.recordPhase(ElectionMetrics.Phase.AWAIT_TURN, phaseStart);
+                result = acceptGrant();
+                break;
+            }
+            String predecessor = findPredecessor();
+            if (predecessor == null) {
+                phaseStart = metrics.recordPhase(ElectionMetrics.Phase.AWAIT_TURN, phaseStart);
+                result = arbitrate();
+                break;
+            }
+            if (zooKeeper.exists(inGroup(QUEUE_PATH) + "/" + predecessor, changeWatcher) != null) {
+                changeWatcher.awaitChange(0);
+            }
+        }
+        metrics.recordPhase(ElectionMetrics.Phase.DECIDE, phaseStart);
+        metrics.recordPhase(ElectionMetrics.Phase.TOTAL, electionStart);
+        return result;
+    }
+
+    /**
+     * Method for creating the queue znode of the current candidate. If the candidate is the current leader, the
+     * leader znode is deleted in the same transaction, so the next arbiter sees the candidate queued as soon as the
+     * leadership ends.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private void enqueue() throws InterruptedException, KeeperException {
+        List<Op> ops = new ArrayList<>();
+        Stat leaderStat = zooKeeper.exists(inGroup(LEADER_PATH), false);
+        if (leaderStat != null && leaderStat.getEphemeralOwner() == zooKeeper.getSessionId()) {
+            ops.add(Op.delete(inGroup(LEADER_PATH), leaderStat.getVersion()));
+        }
+        ops.add(Op.create(createRegistrationPath(), createRegistrationData(), ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                CreateMode.EPHEMERAL_SEQUENTIAL));
+        List<OpResult> results = zooKeeper.multi(ops);
+        String myQueuePath = ((OpResult.CreateResult) results.get(results.size() - 1)).getPath();
+        myQueueNodeName = myQueuePath.substring(inGroup(QUEUE_PATH).length() + 1);
+        System.out.printf("Queued with znode %s%n", myQueueNodeName);
+    }
+
+    /**
+     * Method for finding the queue znode directly in front of the current candidate's queue znode.
+     *
+     * @return the name of the predecessor's queue znode, or null if the current candidate is at the head.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private String findPredecessor() throws InterruptedException, KeeperException {
+        List<String> queue = zooKeeper.getChildren(inGroup(QUEUE_PATH), false);
+        sortBySequence(queue);
+        int myIndex = queue.indexOf(myQueueNodeName);
+        return myIndex > 0 ? queue.get(myIndex - 1) : null;
+    }
+
+    /**
+     * Method for obtaining the path of the grant znode for the current candidate.
+     *
+     * @return the path of the current candidate's grant znode.
+     */
+    private String getMyGrantPath() {
+        return inGroup(GRANT_PATH) + "/" + myQueueNodeName;
+    }
+
+    /**
+     * Method for accepting the leadership granted to the current candidate. Creates the leader znode and leaves the
+     * queue in one transaction.
+     *
+     * @return true, since the current candidate won.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private boolean acceptGrant() throws InterruptedException, KeeperException {
+        zooKeeper.multi(List.of(
+                Op.create(inGroup(LEADER_PATH), hostName.getBytes(StandardCharsets.UTF_8), ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                        CreateMode.EPHEMERAL),
+                Op.delete(getMyGrantPath(), -1),
+                Op.delete(inGroup(QUEUE_PATH) + "/" + myQueueNodeName, -1)));
+        elected = true;
+        System.out.println("Won election!");
+        return true;
+    }
+
+    /**
+     * Method for deciding the election as the candidate at the head of the queue. Waits for the previous leader to
+     * finish, then grants leadership to the queued candidate with the lowest order number. If the current candidate
+     * lost, it leaves the queue so the next candidate becomes arbiter of the following election.
+     *
+     * @return true if the current candidate won, and false otherwise.
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private boolean arbitrate() throws InterruptedException, KeeperException {
+        awaitPreviousLeadership();
+
+        List<String> queue = zooKeeper.getChildren(inGroup(QUEUE_PATH), false);
+        sortBySequence(queue);
+        Map<String, Participant> registrations = readParticipants(inGroup(QUEUE_PATH), queue);
+        List<Participant> participants = new ArrayList<>(registrations.values());
+        System.out.printf("Extracted election participants:%n%s%n", participants);
+        Collections.sort(participants);
+        Participant winner = participants.get(0);
+        if (winner.getIdentifier().equals(identity)) {
+            zooKeeper.multi(List.of(
+                    Op.create(inGroup(LEADER_PATH), hostName.getBytes(StandardCharsets.UTF_8),
+                            ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL),
+                    Op.delete(inGroup(QUEUE_PATH) + "/" + myQueueNodeName, -1)));
+            elected = true;
+            System.out.println("Won election!");
+            return true;
+        }
+
+        String winnerQueueNodeName = findQueueNodeName(registrations, winner);
+        zooKeeper.multi(List.of(
+                Op.create(inGroup(GRANT_PATH) + "/" + winnerQueueNodeName, null, ZooDefs.Ids.OPEN_ACL_UNSAFE,
+                        CreateMode.EPHEMERAL),
+                Op.delete(inGroup(QUEUE_PATH) + "/" + myQueueNodeName, -1)));
+        System.out.println("Lost election...");
+        return false;
+    }
+
+    /**
+     * Method for finding the queue znode belonging to a participant.
+     *
+     * @param registrations the participants of all queued candidates, keyed by their queue znode names.
+     * @param participant the participant whose queue znode is looked for.
+     * @return the name of the participant's queue znode.
+     */
+    private String findQueueNodeName(Map<String, Participant> registrations, Participant participant) {
+        for (Map.Entry<String, Participant> registration : registrations.entrySet()) {
+            if (registration.getValue() == participant) {
+                return registration.getKey();
+            }
+        }
+        throw new IllegalStateException("No registration found for " + participant);
+    }
+
+    /**
+     * Method for sorting queue znode names by the sequence number ZooKeeper appended to them.
+     *
+     * @param queue the names of the queue znodes.
+     */
+    private static void sortBySequence(List<String> queue) {
+        queue.sort(Comparator.comparing(name -> name.substring(name.length() - SEQUENCE_LENGTH)));
+    }
+
+    /**
+     * Method for waiting until no leader znode and no pending grant exists. Grants for candidates that left the queue
+     * without accepting them, for example because they crashed, are deleted.
+     *
+     * @throws InterruptedException
+     * @throws KeeperException
+     */
+    private void awaitPreviousLeadership() throws InterruptedException, KeeperException {
+        ChangeWatcher changeWatcher = new ChangeWatcher();
+        while (true) {
+            changeWatcher.reset();
+            List<String> grants = zooKeeper.getChildren(inGroup(GRANT_PATH), changeWatcher);
+            for (String grant : grants) {
+                if (zooKeeper.exists(inGroup(QUEUE_PATH) + "/" + grant, false) == null) {
+                    System.out.printf("Deleting stale grant %s%n", grant);
+                    tryDeleteZnode(inGroup(GRANT_PATH) + "/" + grant);
+                }
+            }
+            boolean leaderPresent = zooKeeper.exists(inGroup(LEADER_PATH), changeWatcher) != null;
+            if (grants.isEmpty() && !leaderPresent) {
+                return;
+            }
+            changeWatcher.awaitChange(0);
+        }
+    }
+}
@@ -25,27 +25,171 @@
 
 package leaderelection;
 
+import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.Watcher.Event.KeeperState;
 import org.apache.zookeeper.ZooKeeper;
 
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Class managing the session to a ZooKeeper server. A session that lost its connection is reconnected by the client
+ * within the session timeout, and can be waited for. A session that expired can be replaced by a new one, which is
+ * established with jittered exponential backoff between the attempts.
+ */
 public class ZKConnection {
+    private static final int SESSION_TIMEOUT = 5000;
+    private static final long BASE_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
 
-    private ZooKeeper zooKeeper;
-    final CountDownLatch countDownLatch = new CountDownLatch(1);
+    private final int sessionTimeout;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private String host;
+    private volatile ZooKeeper zooKeeper;
+    private final Object connectionMonitor = new Object();
 
+    public ZKConnection() {
+        this(SESSION_TIMEOUT, BASE_BACKOFF_MILLIS, MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Constructor for ZKConnection with custom timing.
+     *
+     * @param sessionTimeout the session timeout in milliseconds, also the time to wait for a connection per attempt.
+     * @param baseBackoffMillis the upper bound of the delay before the first retry in milliseconds.
+     * @param maxBackoffMillis the upper bound of the delay before any retry in milliseconds.
+     */
+    public ZKConnection(int sessionTimeout, long baseBackoffMillis, long maxBackoffMillis) {
+        this.sessionTimeout = sessionTimeout;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Method for connecting to a ZooKeeper server. Retries until a session is established.
+     *
+     * @param host the connect string of the ZooKeeper server.
+     * @return the connected ZooKeeper handle.
+     * @throws IOException
+     * @throws InterruptedException
+     */
     public ZooKeeper connect(String host) throws IOException, InterruptedException {
-        zooKeeper = new ZooKeeper(host, 5000, watchedEvent -> {
-            if (watchedEvent.getState() == KeeperState.SyncConnected) {
-                countDownLatch.countDown();
+        this.host = host;
+        zooKeeper = establishSession();
+        return zooKeeper;
+    }
+
+    public ZooKeeper getZooKeeper() {
+        return zooKeeper;
+    }
+
+    /**
+     * Method for waiting until a session that lost its connection is connected again. The client reconnects on its own
+     * while the session is alive, a session that stays disconnected for longer than the session timeout expires. The
+     * connection is confirmed by a request, since the client may not have noticed a connection that was just lost.
+     *
+     * @param zooKeeper the handle of the session.
+     * @return true if the session is connected, and false if it expired, was closed or is still disconnected after
+     * the session timeout.
+     * @throws InterruptedException
+     */
+    public boolean awaitConnected(ZooKeeper zooKeeper) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + sessionTimeout;
+        while (awaitConnectedState(zooKeeper, deadline)) {
+            try {
+                zooKeeper.exists("/", false);
+                return true;
+            } catch (KeeperException.ConnectionLossException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(baseBackoffMillis); //the client has not noticed the lost connection yet
+            } catch (KeeperException e) {
+                return false;
             }
-        });
-        countDownLatch.await();
+        }
+        return false;
+    }
+
+    /**
+     * Method for waiting until the client reports a session as connected.
+     *
+     * @param zooKeeper the handle of the session.
+     * @param deadline the time until which to wait, in milliseconds since the epoch.
+     * @return true if the client reports the session as connected, and false if it expired, was closed or the
+     * deadline passed.
+     * @throws InterruptedException
+     */
+    private boolean awaitConnectedState(ZooKeeper zooKeeper, long deadline) throws InterruptedException {
+        synchronized (connectionMonitor) {
+            while (true) {
+                ZooKeeper.States state = zooKeeper.getState();
+                long remaining = deadline - System.currentTimeMillis();
+                if (state.isConnected() || !state.isAlive() || remaining <= 0) {
+                    return state.isConnected();
+                }
+                connectionMonitor.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Method for replacing a failed session by a new one. The failed session is closed, which removes its ephemeral
+     * znodes. If another thread already replaced the failed session, the current session is returned instead.
+     *
+     * @param failedZooKeeper the handle of the session that failed.
+     * @return the handle of the new session.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public synchronized ZooKeeper reconnect(ZooKeeper failedZooKeeper) throws IOException, InterruptedException {
+        if (failedZooKeeper != zooKeeper) {
+            return zooKeeper;
+        }
+        System.out.printf("Replacing ZooKeeper session 0x%x%n", failedZooKeeper.getSessionId());
+        failedZooKeeper.close();
+        zooKeeper = establishSession();
         return zooKeeper;
     }
 
+    /**
+     * Method for establishing a new session. Each attempt waits up to the session timeout for the connection, failed
+     * attempts are retried after a random delay of up to baseBackoffMillis * 2^attempt, capped at maxBackoffMillis.
+     *
+     * @return the handle of the connected session.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private ZooKeeper establishSession() throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            CountDownLatch connected = new CountDownLatch(1);
+            ZooKeeper newZooKeeper = new ZooKeeper(host, sessionTimeout, watchedEvent -> {
+                KeeperState state = watchedEvent.getState();
+                if (state == KeeperState.SyncConnected) {
+                    connected.countDown();
+                } else if (state == KeeperState.Disconnected) {
+                    System.out.println("Disconnected from ZooKeeper, the client tries to reconnect...");
+                } else if (state == KeeperState.Expired) {
+                    System.out.println("ZooKeeper session expired!");
+                }
+                synchronized (connectionMonitor) {
+                    connectionMonitor.notifyAll(); //wakes up the threads waiting for the session to reconnect
+                }
+            });
+            if (connected.await(sessionTimeout, TimeUnit.MILLISECONDS)) {
+                return newZooKeeper;
+            }
+            newZooKeeper.close();
+            long backoff = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 30));
+            long delay = ThreadLocalRandom.current().nextLong(backoff + 1);
+            System.out.printf("Could not connect to %s, retrying in %d ms%n", host, delay);
+            Thread.sleep(delay);
+        }
+    }
+
     public void close() throws InterruptedException {
         zooKeeper.close();
     }
@@ -0,0 +1,66 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A group of deployments which is moved independently of other groups. Each group elects its own leader and uses its
+ * own node label, so the targets of different groups can be moved in parallel.
+ */
+public class DeploymentGroup {
+    private String name;
+    // Label key marking the active node of this group, must match the node selector of the group's deployments.
+    private String labelKey = "mtd/node";
+    private List<String> deploymentFileNames = new ArrayList<>();
+
+    public DeploymentGroup() {
+    }
+
+    public DeploymentGroup(String name, String labelKey, List<String> deploymentFileNames) {
+        this.name = name;
+        this.labelKey = labelKey;
+        this.deploymentFileNames = deploymentFileNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLabelKey() {
+        return labelKey;
+    }
+
+    public void setLabelKey(String labelKey) {
+        this.labelKey = labelKey;
+    }
+
+    public List<String> getDeploymentFileNames() {
+        return deploymentFileNames;
+    }
+
+    public void setDeploymentFileNames(List<String> deploymentFileNames) {
+        this.deploymentFileNames = deploymentFileNames;
+    }
+}
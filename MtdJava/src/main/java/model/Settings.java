@@ -19,7 +19,9 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Settings {
     private String name;
@@ -30,6 +32,61 @@ public class Settings {
     private boolean logToConsole = true;
     // Todo The setting exist but logging to file is not yet implemented.
     private boolean logToFile = true;
+    // Leader lease: the elected leader keeps moving the target until its term ends. 0 disables a term limit.
+    private boolean leaderLeaseEnabled = false;
+    private int leaseTermMoves = 10;
+    private long leaseTermMillis = 60_000;
+    private double leaseLoadThreshold = 0.8;
+    // Pipelined elections: the next leader is elected while the current leader still moves the target.
+    private boolean pipelinedElections = false;
+    // Deployment groups, each moved by its own elected leader. Empty means a single election for all deployments.
+    private List<DeploymentGroup> deploymentGroups = new ArrayList<>();
+    // Load added to a candidate's load in group elections for every group it currently leads.
+    private double groupLeaderLoadPenalty = 0.25;
+    // Number of elections after which a candidate prints its election metrics. 0 disables the output.
+    private int electionMetricsInterval = 10;
+    // Minimum number of candidates an election requires, elections wait for all live candidates beyond that.
+    // 0 uses the default of the candidates, a majority of the ensemble size.
+    private int electionQuorum = 0;
+    // Source of the load reported in heuristic elections, either "metrics-server" or "proc-stat".
+    private String loadProvider = "metrics-server";
+    // Weight of a new load sample in the smoothed load, 1.0 disables the smoothing.
+    private double loadSmoothing = 0.3;
+    // Number of most recent load samples kept for the load percentiles.
+    private int loadWindowSize = 20;
+    // Interval between two load samples in milliseconds.
+    private long loadSampleMillis = 1000;
+    // Weights of the resources ranking the candidates in heuristic elections: cpu, memory, pods and apiLatency.
+    private Map<String, Double> scoringWeights = new LinkedHashMap<>(Map.of("cpu", 1.0));
+    // Read nodes, pods and deployments from an informer-backed in-memory cache instead of requesting them every time.
+    private boolean clusterCacheEnabled = true;
+    // Maximum time to wait for the pod of a new deployment to become ready before keeping the previous deployments.
+    private long podReadyTimeoutMillis = 15_000;
+    // Maximum time to wait for the pod of a new deployment to become a ready endpoint of the Service.
+    private long endpointReadyTimeoutMillis = 10_000;
+    // Maximum number of previous deployments deleted at the same time after a move.
+    private int deleteParallelism = 4;
+    // Grace period of the deletion of previous deployments in seconds, -1 uses the default grace period.
+    private int deleteGracePeriodSeconds = -1;
+    // Connections to the API server kept open for reuse, also the limit of concurrent asynchronous requests.
+    private int apiPoolSize = 10;
+    // Time an idle connection to the API server is kept open in milliseconds.
+    private long apiKeepAliveMillis = 300_000;
+    // Timeouts of requests to the API server in milliseconds. The call timeout bounds a whole request, 0 disables it.
+    // The read timeout must exceed the 5 s watches waiting for pods and endpoints.
+    private long apiConnectTimeoutMillis = 10_000;
+    private long apiReadTimeoutMillis = 30_000;
+    private long apiCallTimeoutMillis = 60_000;
+    // Maximum time between two events of the cluster cache watches in milliseconds, 0 waits forever.
+    private long apiWatchTimeoutMillis = 0;
+    // Multiplex the requests to the API server over HTTP/2 where the API server supports it.
+    private boolean apiHttp2Enabled = true;
+    // Request gzip-compressed responses from the API server.
+    private boolean apiGzipEnabled = true;
+    // Sustained rate and burst of requests to the API server. Mutations are sent before reads, and reads before
+    // metrics requests. A rate of 0 disables the limit.
+    private double apiRateLimit = 50;
+    private int apiRateBurst = 100;
 
     public String getName() {
         return name;
@@ -78,4 +135,236 @@ public class Settings {
     public void setDeploymentFileNames(List<String> deploymentFileNames) {
         this.deploymentFileNames = deploymentFileNames;
     }
+
+    public boolean isLeaderLeaseEnabled() {
+        return leaderLeaseEnabled;
+    }
+
+    public void setLeaderLeaseEnabled(boolean leaderLeaseEnabled) {
+        this.leaderLeaseEnabled = leaderLeaseEnabled;
+    }
+
+    public int getLeaseTermMoves() {
+        return leaseTermMoves;
+    }
+
+    public void setLeaseTermMoves(int leaseTermMoves) {
+        this.leaseTermMoves = leaseTermMoves;
+    }
+
+    public long getLeaseTermMillis() {
+        return leaseTermMillis;
+    }
+
+    public void setLeaseTermMillis(long leaseTermMillis) {
+        this.leaseTermMillis = leaseTermMillis;
+    }
+
+    public double getLeaseLoadThreshold() {
+        return leaseLoadThreshold;
+    }
+
+    public void setLeaseLoadThreshold(double leaseLoadThreshold) {
+        this.leaseLoadThreshold = leaseLoadThreshold;
+    }
+
+    public boolean isPipelinedElections() {
+        return pipelinedElections;
+    }
+
+    public void setPipelinedElections(boolean pipelinedElections) {
+        this.pipelinedElections = pipelinedElections;
+    }
+
+    public List<DeploymentGroup> getDeploymentGroups() {
+        return deploymentGroups;
+    }
+
+    public void setDeploymentGroups(List<DeploymentGroup> deploymentGroups) {
+        this.deploymentGroups = deploymentGroups;
+    }
+
+    public double getGroupLeaderLoadPenalty() {
+        return groupLeaderLoadPenalty;
+    }
+
+    public void setGroupLeaderLoadPenalty(double groupLeaderLoadPenalty) {
+        this.groupLeaderLoadPenalty = groupLeaderLoadPenalty;
+    }
+
+    public int getElectionMetricsInterval() {
+        return electionMetricsInterval;
+    }
+
+    public void setElectionMetricsInterval(int electionMetricsInterval) {
+        this.electionMetricsInterval = electionMetricsInterval;
+    }
+
+    public int getElectionQuorum() {
+        return electionQuorum;
+    }
+
+    public void setElectionQuorum(int electionQuorum) {
+        this.electionQuorum = electionQuorum;
+    }
+
+    public String getLoadProvider() {
+        return loadProvider;
+    }
+
+    public void setLoadProvider(String loadProvider) {
+        this.loadProvider = loadProvider;
+    }
+
+    public double getLoadSmoothing() {
+        return loadSmoothing;
+    }
+
+    public void setLoadSmoothing(double loadSmoothing) {
+        this.loadSmoothing = loadSmoothing;
+    }
+
+    public int getLoadWindowSize() {
+        return loadWindowSize;
+    }
+
+    public void setLoadWindowSize(int loadWindowSize) {
+        this.loadWindowSize = loadWindowSize;
+    }
+
+    public long getLoadSampleMillis() {
+        return loadSampleMillis;
+    }
+
+    public void setLoadSampleMillis(long loadSampleMillis) {
+        this.loadSampleMillis = loadSampleMillis;
+    }
+
+    public Map<String, Double> getScoringWeights() {
+        return scoringWeights;
+    }
+
+    public void setScoringWeights(Map<String, Double> scoringWeights) {
+        this.scoringWeights = scoringWeights;
+    }
+
+    public boolean isClusterCacheEnabled() {
+        return clusterCacheEnabled;
+    }
+
+    public void setClusterCacheEnabled(boolean clusterCacheEnabled) {
+        this.clusterCacheEnabled = clusterCacheEnabled;
+    }
+
+    public long getPodReadyTimeoutMillis() {
+        return podReadyTimeoutMillis;
+    }
+
+    public void setPodReadyTimeoutMillis(long podReadyTimeoutMillis) {
+        this.podReadyTimeoutMillis = podReadyTimeoutMillis;
+    }
+
+    public long getEndpointReadyTimeoutMillis() {
+        return endpointReadyTimeoutMillis;
+    }
+
+    public void setEndpointReadyTimeoutMillis(long endpointReadyTimeoutMillis) {
+        this.endpointReadyTimeoutMillis = endpointReadyTimeoutMillis;
+    }
+
+    public int getDeleteParallelism() {
+        return deleteParallelism;
+    }
+
+    public void setDeleteParallelism(int deleteParallelism) {
+        this.deleteParallelism = deleteParallelism;
+    }
+
+    public int getDeleteGracePeriodSeconds() {
+        return deleteGracePeriodSeconds;
+    }
+
+    public void setDeleteGracePeriodSeconds(int deleteGracePeriodSeconds) {
+        this.deleteGracePeriodSeconds = deleteGracePeriodSeconds;
+    }
+
+    public int getApiPoolSize() {
+        return apiPoolSize;
+    }
+
+    public void setApiPoolSize(int apiPoolSize) {
+        this.apiPoolSize = apiPoolSize;
+    }
+
+    public long getApiKeepAliveMillis() {
+        return apiKeepAliveMillis;
+    }
+
+    public void setApiKeepAliveMillis(long apiKeepAliveMillis) {
+        this.apiKeepAliveMillis = apiKeepAliveMillis;
+    }
+
+    public long getApiConnectTimeoutMillis() {
+        return apiConnectTimeoutMillis;
+    }
+
+    public void setApiConnectTimeoutMillis(long apiConnectTimeoutMillis) {
+        this.apiConnectTimeoutMillis = apiConnectTimeoutMillis;
+    }
+
+    public long getApiReadTimeoutMillis() {
+        return apiReadTimeoutMillis;
+    }
+
+    public void setApiReadTimeoutMillis(long apiReadTimeoutMillis) {
+        this.apiReadTimeoutMillis = apiReadTimeoutMillis;
+    }
+
+    public long getApiCallTimeoutMillis() {
+        return apiCallTimeoutMillis;
+    }
+
+    public void setApiCallTimeoutMillis(long apiCallTimeoutMillis) {
+        this.apiCallTimeoutMillis = apiCallTimeoutMillis;
+    }
+
+    public long getApiWatchTimeoutMillis() {
+        return apiWatchTimeoutMillis;
+    }
+
+    public void setApiWatchTimeoutMillis(long apiWatchTimeoutMillis) {
+        this.apiWatchTimeoutMillis = apiWatchTimeoutMillis;
+    }
+
+    public boolean isApiHttp2Enabled() {
+        return apiHttp2Enabled;
+    }
+
+    public void setApiHttp2Enabled(boolean apiHttp2Enabled) {
+        this.apiHttp2Enabled = apiHttp2Enabled;
+    }
+
+    public boolean isApiGzipEnabled() {
+        return apiGzipEnabled;
+    }
+
+    public void setApiGzipEnabled(boolean apiGzipEnabled) {
+        this.apiGzipEnabled = apiGzipEnabled;
+    }
+
+    public double getApiRateLimit() {
+        return apiRateLimit;
+    }
+
+    public void setApiRateLimit(double apiRateLimit) {
+        this.apiRateLimit = apiRateLimit;
+    }
+
+    public int getApiRateBurst() {
+        return apiRateBurst;
+    }
+
+    public void setApiRateBurst(int apiRateBurst) {
+        this.apiRateBurst = apiRateBurst;
+    }
 }
@@ -0,0 +1,208 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.Configuration;
+import io.kubernetes.client.util.Config;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates API clients for the cluster with a sized connection pool and bounded timeouts. Kubectl and the generated
+ * APIs use the default API client, so installing a client of the factory as the default client applies the settings
+ * to the whole model. Without a call timeout a single API server response that never completes blocks its caller,
+ * such as a target movement, forever.
+ */
+public class ApiClientFactory {
+    private int poolSize = 10;
+    private long keepAliveMillis = 300_000;
+    private long connectTimeoutMillis = 10_000;
+    private long readTimeoutMillis = 30_000;
+    private long callTimeoutMillis = 60_000;
+    private long watchTimeoutMillis = 0;
+    private boolean http2Enabled = true;
+    private boolean gzipEnabled = true;
+    private ApiRateLimiter rateLimiter = null;
+
+    /**
+     * Creates a client for requests using the cluster configuration of the environment
+     * @return The API client
+     * @throws IOException Throws if the cluster configuration could not be loaded
+     */
+    public ApiClient create() throws IOException {
+        return configure(Config.defaultClient(), false);
+    }
+
+    /**
+     * Creates a client for watches using the cluster configuration of the environment. Watches are held open, so the
+     * client has no call timeout and the watch timeout as read timeout.
+     * @return The API client
+     * @throws IOException Throws if the cluster configuration could not be loaded
+     */
+    public ApiClient createWatchClient() throws IOException {
+        return configure(Config.defaultClient(), true);
+    }
+
+    /**
+     * Creates a client for requests and installs it as the default API client
+     * @return The API client
+     * @throws IOException Throws if the cluster configuration could not be loaded
+     */
+    public ApiClient install() throws IOException {
+        ApiClient apiClient = create();
+        Configuration.setDefaultApiClient(apiClient);
+        return apiClient;
+    }
+
+    /**
+     * Applies the settings of the factory to the HTTP client of an API client
+     * @param apiClient The API client
+     * @param watch True to configure the client for watches
+     * @return The API client
+     */
+    ApiClient configure(ApiClient apiClient, boolean watch) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(poolSize); //asynchronous calls beyond the pool size wait for a connection
+        OkHttpClient.Builder builder = apiClient.getHttpClient().newBuilder()
+                .connectionPool(new ConnectionPool(poolSize, keepAliveMillis, TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(watch ? watchTimeoutMillis : readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .callTimeout(watch ? 0 : callTimeoutMillis, TimeUnit.MILLISECONDS)
+                .protocols(http2Enabled ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1));
+        if (!gzipEnabled) {
+            // OkHttp requests gzip and decompresses transparently unless the request names an encoding
+            builder.addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                    .header("Accept-Encoding", "identity").build()));
+        }
+        if (rateLimiter != null) {
+            builder.addInterceptor(chain -> {
+                Request request = chain.request();
+                try {
+                    rateLimiter.acquire(ApiRateLimiter.classify(request.method(), request.url().encodedPath()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the API rate limit");
+                }
+                return chain.proceed(request);
+            });
+        }
+        apiClient.setHttpClient(builder.build());
+        return apiClient;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @param poolSize The maximum number of idle connections kept and of concurrent asynchronous calls
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Invalid connection pool size: " + poolSize);
+        }
+        this.poolSize = poolSize;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public void setKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(long readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public long getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    /**
+     * @param callTimeoutMillis The maximum time of a whole request including its retries, 0 for no limit
+     */
+    public void setCallTimeoutMillis(long callTimeoutMillis) {
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    public long getWatchTimeoutMillis() {
+        return watchTimeoutMillis;
+    }
+
+    /**
+     * @param watchTimeoutMillis The maximum time between two events of a watch, 0 for no limit
+     */
+    public void setWatchTimeoutMillis(long watchTimeoutMillis) {
+        this.watchTimeoutMillis = watchTimeoutMillis;
+    }
+
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    /**
+     * @param http2Enabled True to multiplex requests over HTTP/2 connections where the API server supports it
+     */
+    public void setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+
+    public boolean isGzipEnabled() {
+        return gzipEnabled;
+    }
+
+    public void setGzipEnabled(boolean gzipEnabled) {
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    public ApiRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param rateLimiter The rate limiter shared by the requests of the clients, null for no limit
+     */
+    public void setRateLimiter(ApiRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+}
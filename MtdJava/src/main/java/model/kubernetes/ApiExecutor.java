@@ -0,0 +1,88 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package model.kubernetes;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs blocking requests to the API server on a dedicated bounded thread pool and returns their results as futures,
+ * so independent requests can run in parallel instead of one after the other on the caller's thread. Checked
+ * exceptions of a request complete its future exceptionally with the exception itself.
+ */
+public class ApiExecutor {
+    public static final int PARALLELISM = 8;
+    private static final long IDLE_SECONDS = 10;
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+            IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "kubernetes-api");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * A request returning a result
+     */
+    @FunctionalInterface
+    public interface ApiCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * A request without a result
+     */
+    @FunctionalInterface
+    public interface ApiAction {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a request in the background
+     * @param call The request
+     * @return Future of the result of the request
+     */
+    public static <T> CompletableFuture<T> supplyAsync(ApiCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(call.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs a request without a result in the background
+     * @param action The request
+     * @return Future completed when the request is done
+     */
+    public static CompletableFuture<Void> runAsync(ApiAction action) {
+        return supplyAsync(() -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import leaderelection.Election;
+import leaderelection.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting the rate of requests to the API server, so bursts of requests are spread out by the client
+ * instead of being throttled by the API server. Requests waiting for a token are served by priority and in arrival
+ * order within a priority, so the mutations of a target movement are not queued behind reads for metrics.
+ */
+public class ApiRateLimiter {
+
+    /**
+     * The priorities of requests, from the highest to the lowest
+     */
+    public enum Priority {
+        // Mutations, such as applying and deleting deployments or moving the node label
+        HIGH,
+        // Reads of the cluster state, such as waiting for a pod to become ready
+        MEDIUM,
+        // Metrics and discovery
+        LOW
+    }
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private double tokens;
+    private long refilledNanos;
+    private final Map<Priority, ArrayDeque<Object>> waiters = new EnumMap<>(Priority.class);
+    private final Map<Priority, LatencyHistogram> delays = new EnumMap<>(Priority.class);
+
+    /**
+     * Creates a rate limiter with a full bucket
+     * @param permitsPerSecond The sustained number of requests per second
+     * @param burst The number of requests which can be sent at once after a pause
+     */
+    public ApiRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid API rate limit: " + permitsPerSecond + "/s, burst " + burst);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledNanos = System.nanoTime();
+        for (Priority priority : Priority.values()) {
+            waiters.put(priority, new ArrayDeque<>());
+            delays.put(priority, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Waits for a token for a request
+     * @param priority The priority of the request
+     * @return The time waited in nanoseconds
+     * @throws InterruptedException Throws if interrupted while waiting
+     */
+    public long acquire(Priority priority) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        Object waiter = new Object();
+        synchronized (this) {
+            ArrayDeque<Object> queue = waiters.get(priority);
+            queue.addLast(waiter);
+            try {
+                while (true) {
+                    refill();
+                    boolean first = queue.peekFirst() == waiter && !isHigherWaiting(priority);
+                    if (first && tokens >= 1) {
+                        tokens -= 1;
+                        break;
+                    }
+                    if (first) {
+                        TimeUnit.NANOSECONDS.timedWait(this, (long) Math.ceil((1 - tokens) / permitsPerSecond * 1e9));
+                    } else {
+                        wait();
+                    }
+                }
+            } finally {
+                queue.remove(waiter);
+                notifyAll(); //the next waiter is first now
+            }
+        }
+        long waitedNanos = System.nanoTime() - startNanos;
+        delays.get(priority).record(waitedNanos);
+        return waitedNanos;
+    }
+
+    /**
+     * Gets the classification of a request to the API server
+     * @param method The HTTP method
+     * @param path The URL path
+     * @return HIGH for mutations, LOW for metrics and discovery, otherwise MEDIUM
+     */
+    public static Priority classify(String method, String path) {
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return Priority.HIGH;
+        }
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        boolean discovery = segments[0].equals("api") ? segments.length <= 2
+                : !segments[0].equals("apis") || segments.length <= 3; //such as /apis/apps/v1, /version or /openapi
+        if (discovery || path.startsWith("/apis/metrics.k8s.io/")) {
+            return Priority.LOW;
+        }
+        return Priority.MEDIUM;
+    }
+
+    /**
+     * Gets the time requests waited for a token
+     * @param priority The priority of the requests
+     * @return The histogram of the waiting times
+     */
+    public LatencyHistogram getQueueingDelay(Priority priority) {
+        return delays.get(priority);
+    }
+
+    /**
+     * Exports the waiting times as output lines in the format of the experiment output, one line per priority
+     * @param hostName The hostname the metrics belong to
+     * @return The output lines
+     */
+    public List<String> export(String hostName) {
+        List<String> lines = new ArrayList<>();
+        String timeStamp = Election.getCetTimeStamp();
+        for (Priority priority : Priority.values()) {
+            LatencyHistogram histogram = delays.get(priority);
+            lines.add(String.format("EXP-API-QUEUE, %s, %s, %s, %d, %.3f, %.3f, %.3f, %.3f",
+                    timeStamp, hostName, priority, histogram.getCount(), histogram.getMeanMillis(),
+                    histogram.getPercentileMillis(0.5), histogram.getPercentileMillis(0.99),
+                    histogram.getMaxMillis()));
+        }
+        return lines;
+    }
+
+    private boolean isHigherWaiting(Priority priority) {
+        for (Priority higher : Priority.values()) {
+            if (higher == priority) {
+                return false;
+            }
+            if (!waiters.get(higher).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledNanos) / 1e9 * permitsPerSecond);
+        refilledNanos = now;
+    }
+}
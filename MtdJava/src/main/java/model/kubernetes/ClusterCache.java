@@ -0,0 +1,482 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Caches;
+import io.kubernetes.client.informer.cache.Indexer;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.*;
+import io.kubernetes.client.util.generic.GenericKubernetesApi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory copy of the nodes of the cluster and of the pods and deployments of one namespace, kept up to date by
+ * informers watching the API server. Reads are lookups in local indexes instead of API requests, only mutations go to
+ * the API server. Mutated objects returned by the API server are written back right away, so a read after a mutation
+ * sees it before the watch event arrives. A returned object is only written back if it is newer than the cached one by
+ * its resource version, and not if the object was deleted meanwhile, so it does not undo a later watch event.
+ * The model classes read from the shared cache if one is installed and fall back to API requests otherwise.
+ */
+public class ClusterCache implements AutoCloseable {
+    public static final String NODE_NAME_INDEX = "nodeName";
+    public static final String APP_LABEL_INDEX = "app";
+    public static final String OWNER_INDEX = "owner";
+    private static final String POD_TEMPLATE_HASH_LABEL = "pod-template-hash";
+    // The number of deleted objects whose resource versions are remembered to reject stale write-backs.
+    private static final int MAX_DELETED_VERSIONS = 1000;
+
+    private static volatile ClusterCache shared;
+
+    private final Indexer<V1Node> nodes;
+    private final Indexer<V1Pod> pods;
+    private final Indexer<V1Deployment> deployments;
+    private final String namespace;
+    private final SharedInformerFactory informerFactory;
+    private final Map<String, Long> deletedVersions = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_DELETED_VERSIONS;
+        }
+    };
+
+    /**
+     * Creates a cache on top of the given indexers
+     * @param nodes The indexer of the nodes
+     * @param pods The indexer of the pods
+     * @param deployments The indexer of the deployments
+     * @param namespace The namespace of the cached pods and deployments
+     * @param informerFactory The factory of the informers filling the indexers, or null if they are filled manually
+     */
+    ClusterCache(Indexer<V1Node> nodes, Indexer<V1Pod> pods, Indexer<V1Deployment> deployments, String namespace,
+                 SharedInformerFactory informerFactory) {
+        this.nodes = nodes;
+        this.pods = pods;
+        this.deployments = deployments;
+        this.namespace = namespace;
+        this.informerFactory = informerFactory;
+        pods.addIndexers(Map.of(
+                NODE_NAME_INDEX, pod -> pod.getSpec() == null || pod.getSpec().getNodeName() == null
+                        ? List.of() : List.of(pod.getSpec().getNodeName()),
+                APP_LABEL_INDEX, ClusterCache::getAppLabel,
+                OWNER_INDEX, ClusterCache::getOwnerNames));
+        deployments.addIndexers(Map.of(
+                APP_LABEL_INDEX, ClusterCache::getAppLabel,
+                OWNER_INDEX, ClusterCache::getOwnerLabel));
+    }
+
+    /**
+     * Starts informers for the nodes of the cluster and the pods and deployments of a namespace, waits for their
+     * initial lists and installs the cache as the shared cache. Returns the shared cache if one is installed already.
+     * @param namespace The namespace of the cached pods and deployments
+     * @param timeoutMillis The maximum time to wait for the initial lists
+     * @return The shared cache
+     * @throws IOException Throws if the cluster configuration could not be loaded
+     * @throws InterruptedException Throws if interrupted while waiting for the initial lists
+     * @throws IllegalStateException Throws if the initial lists did not arrive in time
+     */
+    public static ClusterCache startShared(String namespace, long timeoutMillis)
+            throws IOException, InterruptedException {
+        return startShared(new ApiClientFactory().createWatchClient(), namespace, timeoutMillis);
+    }
+
+    /**
+     * Starts informers for the nodes of the cluster and the pods and deployments of a namespace, waits for their
+     * initial lists and installs the cache as the shared cache. Returns the shared cache if one is installed already.
+     * @param apiClient The API client of the watches, the informers reconnect them on their own
+     * @param namespace The namespace of the cached pods and deployments
+     * @param timeoutMillis The maximum time to wait for the initial lists
+     * @return The shared cache
+     * @throws InterruptedException Throws if interrupted while waiting for the initial lists
+     * @throws IllegalStateException Throws if the initial lists did not arrive in time
+     */
+    public static synchronized ClusterCache startShared(ApiClient apiClient, String namespace, long timeoutMillis)
+            throws InterruptedException {
+        if (shared != null) {
+            return shared;
+        }
+        SharedInformerFactory informerFactory = new SharedInformerFactory(apiClient,
+                Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "cluster-cache-informer");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        SharedIndexInformer<V1Node> nodes = informerFactory.sharedIndexInformerFor(
+                new GenericKubernetesApi<>(V1Node.class, V1NodeList.class, "", "v1", "nodes", apiClient),
+                V1Node.class, 0);
+        SharedIndexInformer<V1Pod> pods = informerFactory.sharedIndexInformerFor(
+                new GenericKubernetesApi<>(V1Pod.class, V1PodList.class, "", "v1", "pods", apiClient),
+                V1Pod.class, 0, namespace);
+        SharedIndexInformer<V1Deployment> deployments = informerFactory.sharedIndexInformerFor(
+                new GenericKubernetesApi<>(V1Deployment.class, V1DeploymentList.class, "apps", "v1", "deployments",
+                        apiClient),
+                V1Deployment.class, 0, namespace);
+        ClusterCache cache = new ClusterCache(nodes.getIndexer(), pods.getIndexer(), deployments.getIndexer(),
+                namespace, informerFactory);
+        nodes.addEventHandler(cache.deletionRecorder());
+        pods.addEventHandler(cache.deletionRecorder());
+        deployments.addEventHandler(cache.deletionRecorder());
+        informerFactory.startAllRegisteredInformers();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!cache.hasSynced()) {
+            if (System.currentTimeMillis() > deadline) {
+                informerFactory.stopAllRegisteredInformers();
+                throw new IllegalStateException("Cluster cache did not sync within " + timeoutMillis + " ms");
+            }
+            Thread.sleep(50);
+        }
+        shared = cache;
+        return cache;
+    }
+
+    /**
+     * Gets the shared cache
+     * @return The shared cache, or null if none is installed
+     */
+    public static ClusterCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Installs a cache as the shared cache, replacing the current one
+     * @param cache The cache to share, or null to read from the API server again
+     */
+    static synchronized void setShared(ClusterCache cache) {
+        shared = cache;
+    }
+
+    /**
+     * Gets the shared cache if it holds the pods and deployments of a namespace
+     * @param namespace The namespace
+     * @return The shared cache, or null if there is none for the namespace
+     */
+    static ClusterCache getShared(String namespace) {
+        ClusterCache cache = shared;
+        return cache != null && cache.namespace.equals(namespace) ? cache : null;
+    }
+
+    /**
+     * Checks whether all informers have received their initial lists
+     * @return True if the cache is filled
+     */
+    public boolean hasSynced() {
+        if (informerFactory == null) {
+            return true;
+        }
+        return informerFactory.getExistingSharedIndexInformer(V1Node.class).hasSynced()
+                && informerFactory.getExistingSharedIndexInformer(V1Pod.class).hasSynced()
+                && informerFactory.getExistingSharedIndexInformer(V1Deployment.class).hasSynced();
+    }
+
+    /**
+     * Gets the namespace of the cached pods and deployments
+     * @return The namespace
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Gets a node by its name
+     * @param name The node name
+     * @return The node, or null if there is no such node
+     */
+    public V1Node getNode(String name) {
+        return nodes.getByKey(name);
+    }
+
+    /**
+     * Gets all nodes of the cluster
+     * @return List of nodes
+     */
+    public List<V1Node> getNodes() {
+        return nodes.list();
+    }
+
+    /**
+     * Gets a pod by its name
+     * @param name The pod name
+     * @return The pod, or null if there is no such pod
+     */
+    public V1Pod getPod(String name) {
+        return pods.getByKey(namespace + "/" + name);
+    }
+
+    /**
+     * Gets all pods scheduled on a node
+     * @param nodeName The node name
+     * @return List of pods
+     */
+    public List<V1Pod> getPodsOnNode(String nodeName) {
+        return pods.byIndex(NODE_NAME_INDEX, nodeName);
+    }
+
+    /**
+     * Gets all pods with an app label
+     * @param app The value of the app label
+     * @return List of pods
+     */
+    public List<V1Pod> getPodsByApp(String app) {
+        return pods.byIndex(APP_LABEL_INDEX, app);
+    }
+
+    /**
+     * Gets all pods owned by a replica set or by a deployment through its replica sets
+     * @param ownerName The name of the owner
+     * @return List of pods
+     */
+    public List<V1Pod> getPodsByOwner(String ownerName) {
+        return pods.byIndex(OWNER_INDEX, ownerName);
+    }
+
+    /**
+     * Gets a deployment by its name
+     * @param name The deployment name
+     * @return The deployment, or null if there is no such deployment
+     */
+    public V1Deployment getDeployment(String name) {
+        return deployments.getByKey(namespace + "/" + name);
+    }
+
+    /**
+     * Gets all deployments of the namespace
+     * @return List of deployments
+     */
+    public List<V1Deployment> getDeployments() {
+        return deployments.list();
+    }
+
+    /**
+     * Gets all deployments with an app label
+     * @param app The value of the app label
+     * @return List of deployments
+     */
+    public List<V1Deployment> getDeploymentsByApp(String app) {
+        return deployments.byIndex(APP_LABEL_INDEX, app);
+    }
+
+    /**
+     * Gets all deployments applied by MTD from the same config file
+     * @param owner The value of the owner label, the name of the deployment in the config file
+     * @return List of deployments
+     */
+    public List<V1Deployment> getDeploymentsByOwner(String owner) {
+        return deployments.byIndex(OWNER_INDEX, owner);
+    }
+
+    /**
+     * Writes back a node returned by the API server after a mutation
+     * @param v1Node The mutated node
+     */
+    public void update(V1Node v1Node) {
+        writeBack(nodes, v1Node);
+    }
+
+    /**
+     * Writes back a pod returned by the API server after a mutation
+     * @param v1Pod The mutated pod
+     */
+    public void update(V1Pod v1Pod) {
+        if (isCached(v1Pod)) {
+            writeBack(pods, v1Pod);
+        }
+    }
+
+    /**
+     * Writes back a deployment returned by the API server after a mutation
+     * @param v1Deployment The mutated deployment
+     */
+    public void update(V1Deployment v1Deployment) {
+        if (isCached(v1Deployment)) {
+            writeBack(deployments, v1Deployment);
+        }
+    }
+
+    /**
+     * Removes a deleted pod
+     * @param v1Pod The deleted pod
+     */
+    public void delete(V1Pod v1Pod) {
+        if (isCached(v1Pod)) {
+            pods.delete(v1Pod);
+            recordDeletion(v1Pod, getResourceVersion(v1Pod));
+        }
+    }
+
+    /**
+     * Removes a deleted deployment
+     * @param v1Deployment The deleted deployment
+     */
+    public void delete(V1Deployment v1Deployment) {
+        if (isCached(v1Deployment)) {
+            deployments.delete(v1Deployment);
+            recordDeletion(v1Deployment, getResourceVersion(v1Deployment));
+        }
+    }
+
+    /**
+     * Stops the informers and uninstalls the cache if it is the shared cache
+     */
+    @Override
+    public void close() {
+        synchronized (ClusterCache.class) {
+            if (shared == this) {
+                shared = null;
+            }
+        }
+        if (informerFactory != null) {
+            informerFactory.stopAllRegisteredInformers();
+        }
+    }
+
+    /**
+     * Creates an event handler of an informer remembering the resource versions of the deleted objects. An object
+     * added again, such as a deployment applied again under the same name, is no longer treated as deleted.
+     * @param <T> The type of the objects of the informer
+     * @return The event handler
+     */
+    <T extends KubernetesObject> ResourceEventHandler<T> deletionRecorder() {
+        return new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(T object) {
+                synchronized (deletedVersions) {
+                    deletedVersions.remove(getDeletionKey(object));
+                }
+            }
+
+            @Override
+            public void onUpdate(T oldObject, T newObject) {
+            }
+
+            @Override
+            public void onDelete(T object, boolean deletedFinalStateUnknown) {
+                // The final state of an object deleted while the watch was down is newer than the last known one
+                recordDeletion(object, deletedFinalStateUnknown ? Long.MAX_VALUE : getResourceVersion(object));
+            }
+        };
+    }
+
+    /**
+     * Writes back an object returned by the API server if it is newer than the cached object. If no object is cached,
+     * it is only written back if it is newer than the object deleted under the same key, if any.
+     * @param indexer The indexer of the object
+     * @param object The object returned by the API server
+     * @param <T> The type of the object
+     */
+    private <T extends KubernetesObject> void writeBack(Indexer<T> indexer, T object) {
+        long resourceVersion = getResourceVersion(object);
+        // The informer updates the indexer while holding its lock, so it cannot change the object in between
+        synchronized (indexer) {
+            T cached = indexer.getByKey(Caches.metaNamespaceKeyFunc(object));
+            long newestVersion;
+            if (cached != null) {
+                newestVersion = getResourceVersion(cached);
+            } else {
+                synchronized (deletedVersions) {
+                    newestVersion = deletedVersions.getOrDefault(getDeletionKey(object), Long.MIN_VALUE);
+                }
+            }
+            if (resourceVersion > newestVersion) {
+                indexer.update(object);
+            }
+        }
+    }
+
+    private void recordDeletion(KubernetesObject object, long resourceVersion) {
+        synchronized (deletedVersions) {
+            deletedVersions.merge(getDeletionKey(object), resourceVersion, Math::max);
+        }
+    }
+
+    private static String getDeletionKey(KubernetesObject object) {
+        return object.getClass().getSimpleName() + "/" + Caches.metaNamespaceKeyFunc(object);
+    }
+
+    /**
+     * Gets the resource version of an object. Resource versions are opaque to clients, but the API server backed by
+     * etcd issues increasing integers.
+     * @param object The object
+     * @return The resource version, or -1 if it is missing or not an integer
+     */
+    private static long getResourceVersion(KubernetesObject object) {
+        String resourceVersion = object.getMetadata() == null ? null : object.getMetadata().getResourceVersion();
+        if (resourceVersion == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(resourceVersion);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean isCached(KubernetesObject object) {
+        return object.getMetadata() != null && namespace.equals(object.getMetadata().getNamespace());
+    }
+
+    private static List<String> getAppLabel(KubernetesObject object) {
+        Map<String, String> labels = object.getMetadata() == null ? null : object.getMetadata().getLabels();
+        if (labels == null || labels.get("app") == null) {
+            return List.of();
+        }
+        return List.of(labels.get("app"));
+    }
+
+    private static List<String> getOwnerLabel(V1Deployment deployment) {
+        Map<String, String> labels = deployment.getMetadata() == null ? null : deployment.getMetadata().getLabels();
+        if (labels == null || labels.get(Deployment.OWNER_LABEL) == null) {
+            return List.of();
+        }
+        return List.of(labels.get(Deployment.OWNER_LABEL));
+    }
+
+    /**
+     * Gets the names of the owners of a pod. The deployment owning a pod through a replica set is derived from the
+     * name of the replica set, which is the deployment name followed by the pod template hash.
+     * @param pod The pod
+     * @return The names of the owners
+     */
+    static List<String> getOwnerNames(V1Pod pod) {
+        if (pod.getMetadata() == null || pod.getMetadata().getOwnerReferences() == null) {
+            return List.of();
+        }
+        Map<String, String> labels = pod.getMetadata().getLabels() == null
+                ? Collections.emptyMap() : pod.getMetadata().getLabels();
+        String hashSuffix = "-" + labels.get(POD_TEMPLATE_HASH_LABEL);
+        List<String> ownerNames = new ArrayList<>();
+        for (V1OwnerReference owner : pod.getMetadata().getOwnerReferences()) {
+            ownerNames.add(owner.getName());
+            if ("ReplicaSet".equals(owner.getKind()) && labels.containsKey(POD_TEMPLATE_HASH_LABEL)
+                    && owner.getName().endsWith(hashSuffix)) {
+                ownerNames.add(owner.getName().substring(0, owner.getName().length() - hashSuffix.length()));
+            }
+        }
+        return ownerNames;
+    }
+}
@@ -22,19 +22,32 @@ import io.kubernetes.client.custom.V1Patch;
 import io.kubernetes.client.extended.kubectl.Kubectl;
 import io.kubernetes.client.extended.kubectl.exception.KubectlException;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.AppsV1Api;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.*;
 import io.kubernetes.client.util.Yaml;
+import io.kubernetes.client.util.generic.options.ListOptions;
 import model.kubernetes.exception.ApplyException;
 import model.kubernetes.exception.DeploymentDeleteException;
 import model.kubernetes.exception.DeploymentNotFoundException;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 public class Deployment implements IDeployment {
+    // Label on the deployments applied by MTD, its value is the name of the deployment in the config file.
+    public static final String OWNER_LABEL = "mtd/owner";
+    private static final String BACKGROUND_PROPAGATION = "Background";
+    // Suffixes of the names of deployments applied by applyUnique and apply before they were labeled with their owner.
+    private static final String LEGACY_SUFFIX = "(-[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}|[0-9]+)";
+    // Namespace and base name of the config files whose legacy deployments were all labeled with their owner.
+    private static final Set<String> labeledLegacyOwners = ConcurrentHashMap.newKeySet();
 
     private V1Deployment v1Deployment;
     private final V1Deployment v1DeploymentUnmodified;
@@ -52,15 +65,38 @@ public class Deployment implements IDeployment {
         v1Deployment = (V1Deployment) Yaml.load(file);
         v1DeploymentUnmodified = (V1Deployment) Yaml.load(file);
         baseName = v1DeploymentUnmodified.getMetadata().getName();
+        v1DeploymentUnmodified.getMetadata().putLabelsItem(OWNER_LABEL, baseName);
+    }
+
+    /**
+     * Creates a Deployment object from a deployment that is running in the cluster
+     * @param v1Deployment Kubernetes Client V1Deployment
+     */
+    public Deployment(V1Deployment v1Deployment) {
+        this.v1Deployment = v1Deployment;
+        v1DeploymentUnmodified = null;
+        Map<String, String> labels = v1Deployment.getMetadata().getLabels();
+        baseName = labels != null && labels.containsKey(OWNER_LABEL)
+                ? labels.get(OWNER_LABEL) : v1Deployment.getMetadata().getName();
     }
 
     /**
      * Gets a Deployment from a running cluster based on the Deployment name.
+     * Reads from the shared cluster cache if it holds the namespace.
      * @param name Deployment name that is to be found in the cluster.
      * @param namespace Cluster namespace to look for the deployment
      * @throws DeploymentNotFoundException Throws exception if deployment is not found.
      */
     public Deployment(String name, String namespace) throws DeploymentNotFoundException {
+        ClusterCache cache = ClusterCache.getShared(namespace);
+        if (cache != null) {
+            v1Deployment = cache.getDeployment(name);
+            v1DeploymentUnmodified = null;
+            if (v1Deployment == null) {
+                throw new DeploymentNotFoundException("Deployment " + name + " not found");
+            }
+            return;
+        }
         try {
             v1Deployment = Kubectl.get(V1Deployment.class)
                     .namespace(namespace)
@@ -78,6 +114,14 @@ public class Deployment implements IDeployment {
      * @throws DeploymentNotFoundException Throws exception if Deployment is not found
      */
     public List<IPod> getPods() throws DeploymentNotFoundException {
+        ClusterCache cache = ClusterCache.getShared(v1Deployment.getMetadata().getNamespace());
+        if (cache != null) {
+            List<IPod> pods = new ArrayList<>();
+            for (V1Pod pod : cache.getPodsByApp(v1Deployment.getMetadata().getLabels().get("app"))) {
+                pods.add(new Pod(pod));
+            }
+            return pods;
+        }
         CoreV1Api api = new CoreV1Api();
         String label = "app=" + v1Deployment.getMetadata().getLabels().get("app");
         try {
@@ -109,6 +153,7 @@ public class Deployment implements IDeployment {
         } catch (KubectlException e) {
             throw new ApplyException(e.getMessage());
         }
+        updateClusterCache();
 
         return appendix;
     }
@@ -129,6 +174,7 @@ public class Deployment implements IDeployment {
         } catch (KubectlException e) {
             throw new ApplyException(e.getMessage());
         }
+        updateClusterCache();
     }
 
     /**
@@ -164,6 +210,7 @@ public class Deployment implements IDeployment {
         } catch (KubectlException e) {
             throw new ApplyException(e.getMessage());
         }
+        updateClusterCache();
     }
 
     /**
@@ -177,6 +224,10 @@ public class Deployment implements IDeployment {
                     .namespace(v1Deployment.getMetadata().getNamespace())
                     .name(v1Deployment.getMetadata().getName())
                     .execute();
+            ClusterCache cache = ClusterCache.getShared();
+            if (cache != null) {
+                cache.delete(v1Deployment);
+            }
             v1Deployment = null;
         } catch (KubectlException e) {
             throw new DeploymentDeleteException(e.getMessage());
@@ -184,27 +235,144 @@ public class Deployment implements IDeployment {
     }
 
     /**
-     * Creates and returns a list of deployments whose name contain this basename.
+     * Deletes this deployment from the cluster without waiting for its pods. The pods are deleted by the garbage
+     * collector afterwards, and a deployment that is already gone counts as deleted.
+     * @param gracePeriodSeconds The grace period of the deletion, or a negative value for the default grace period.
+     * @throws DeploymentDeleteException Throws exception if deployment could not be deleted.
+     */
+    @Override
+    public void deleteInBackground(int gracePeriodSeconds) throws DeploymentDeleteException {
+        V1DeleteOptions deleteOptions = new V1DeleteOptions()
+                .propagationPolicy(BACKGROUND_PROPAGATION)
+                .gracePeriodSeconds(gracePeriodSeconds >= 0 ? (long) gracePeriodSeconds : null);
+        AppsV1Api api = new AppsV1Api();
+        try {
+            // The response body is not parsed, the API server returns the deployment instead of a V1Status.
+            api.getApiClient().execute(api.deleteNamespacedDeploymentCall(v1Deployment.getMetadata().getName(),
+                    v1Deployment.getMetadata().getNamespace(), null, null, null, null, null, deleteOptions, null));
+        } catch (ApiException e) {
+            if (e.getCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new DeploymentDeleteException(e.getMessage());
+            }
+        }
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            cache.delete(v1Deployment);
+        }
+        v1Deployment = null;
+    }
+
+    /**
+     * Creates and returns a list of the deployments applied from the same config file as this deployment, found by
+     * their owner label with a single list request, or in the shared cluster cache if it holds the namespace.
+     * Deployments applied before the owner label existed are found by their name and labeled on sight.
      *
      * @param namespace the namespace in which to look for deployments.
      * @return a list of related deployments.
      * @throws KubectlException
-     * @throws DeploymentNotFoundException
      */
     @Override
-    public List<IDeployment> getRelatedDeployments(String namespace) throws KubectlException, DeploymentNotFoundException {
+    public List<IDeployment> getRelatedDeployments(String namespace) throws KubectlException {
+        ClusterCache cache = ClusterCache.getShared(namespace);
+        List<V1Deployment> ownedDeployments;
+        if (cache != null) {
+            ownedDeployments = cache.getDeploymentsByOwner(baseName);
+        } else {
+            ListOptions listOptions = new ListOptions();
+            listOptions.setLabelSelector(OWNER_LABEL + "=" + baseName);
+            ownedDeployments = Kubectl.get(V1Deployment.class).namespace(namespace).options(listOptions).execute();
+        }
+
         List<IDeployment> relatedDeployments = new ArrayList<>();
-        List<V1Deployment> allDeployments =  Kubectl.get(V1Deployment.class).namespace(namespace).execute();
+        for (V1Deployment deployment : ownedDeployments) {
+            relatedDeployments.add(new Deployment(deployment));
+        }
+        for (V1Deployment deployment : getLegacyDeployments(namespace, cache)) {
+            relatedDeployments.add(new Deployment(deployment));
+        }
+        return relatedDeployments;
+    }
 
-        for (V1Deployment deployment: allDeployments) {
+    /**
+     * Finds the deployments applied from the same config file before the owner label existed, named after the config
+     * file with a counter or a UUID appended, and stamps the owner label on them. Once all of them are labeled, they
+     * are found by the label and the namespace is not searched for them again.
+     * @param namespace The namespace in which to look for deployments
+     * @param cache The shared cluster cache, or null to read from the API server
+     * @return List of the legacy deployments, labeled where the label could be applied
+     * @throws KubectlException Throws if the deployments could not be listed
+     */
+    private List<V1Deployment> getLegacyDeployments(String namespace, ClusterCache cache) throws KubectlException {
+        String owner = namespace + "/" + baseName;
+        if (labeledLegacyOwners.contains(owner)) {
+            return List.of();
+        }
+        List<V1Deployment> unlabeledDeployments;
+        if (cache != null) {
+            unlabeledDeployments = cache.getDeployments();
+        } else {
+            ListOptions listOptions = new ListOptions();
+            listOptions.setLabelSelector("!" + OWNER_LABEL);
+            unlabeledDeployments = Kubectl.get(V1Deployment.class).namespace(namespace).options(listOptions).execute();
+        }
+
+        Pattern legacyName = Pattern.compile(Pattern.quote(baseName) + LEGACY_SUFFIX);
+        List<V1Deployment> legacyDeployments = new ArrayList<>();
+        boolean allLabeled = true;
+        for (V1Deployment deployment : unlabeledDeployments) {
+            Map<String, String> labels = deployment.getMetadata().getLabels();
             String name = deployment.getMetadata().getName();
-            if (name.contains(baseName)) {
-                IDeployment relatedDeployment = new Deployment(name, namespace);
-                relatedDeployments.add(relatedDeployment);
+            if ((labels != null && labels.containsKey(OWNER_LABEL)) || !legacyName.matcher(name).matches()) {
+                continue;
+            }
+            try {
+                deployment = Kubectl.label(V1Deployment.class)
+                        .namespace(namespace)
+                        .name(name)
+                        .addLabel(OWNER_LABEL, baseName)
+                        .execute();
+                if (cache != null) {
+                    cache.update(deployment);
+                }
+            } catch (KubectlException e) {
+                System.out.println("Could not label legacy deployment " + name + ": " + e.getMessage());
+                allLabeled = false;
             }
+            legacyDeployments.add(deployment);
         }
+        if (allLabeled) {
+            labeledLegacyOwners.add(owner);
+        }
+        return legacyDeployments;
+    }
 
-        return relatedDeployments;
+    /**
+     * Waits in the background for a pod of this deployment to become ready. Watches the pods matching the selector of
+     * the deployment and only accepts pods owned by this deployment, since deployments applied from the same file
+     * share their selector.
+     * @param timeoutMillis The maximum time to wait.
+     * @return Future of the ready pod, completed exceptionally with a PodNotReadyException if a pod of this deployment
+     * failed or no pod became ready in time.
+     */
+    @Override
+    public CompletableFuture<IPod> awaitReadyPod(long timeoutMillis) {
+        String name = getName();
+        StringJoiner labelSelector = new StringJoiner(",");
+        v1Deployment.getSpec().getSelector().getMatchLabels()
+                .forEach((key, value) -> labelSelector.add(key + "=" + value));
+        return new PodReadinessWaiter(v1Deployment.getMetadata().getNamespace())
+                .awaitReady(labelSelector.toString(), pod -> ClusterCache.getOwnerNames(pod).contains(name),
+                        timeoutMillis);
+    }
+
+    /**
+     * Writes the deployment returned by the API server back to the shared cluster cache, if there is one.
+     */
+    private void updateClusterCache() {
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            cache.update(v1Deployment);
+        }
     }
 
     @Override
@@ -0,0 +1,127 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import model.kubernetes.exception.DeploymentDeleteException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes deployments in parallel on a bounded number of threads. The deletions propagate in the background, so they
+ * complete without waiting for the pods to terminate, and a failed deletion does not stop the others.
+ */
+public class DeploymentDeleter implements AutoCloseable {
+    public static final int DEFAULT_PARALLELISM = 4;
+    private static final long IDLE_SECONDS = 10;
+
+    private final ExecutorService executor;
+    private final int gracePeriodSeconds;
+
+    /**
+     * The outcome of the deletion of one deployment
+     */
+    public static class Outcome {
+        private final String deploymentName;
+        private final DeploymentDeleteException error;
+
+        Outcome(String deploymentName, DeploymentDeleteException error) {
+            this.deploymentName = deploymentName;
+            this.error = error;
+        }
+
+        public String getDeploymentName() {
+            return deploymentName;
+        }
+
+        public boolean isDeleted() {
+            return error == null;
+        }
+
+        /**
+         * @return The reason the deployment could not be deleted, or null if it was deleted
+         */
+        public DeploymentDeleteException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return deploymentName + (isDeleted() ? ": deleted" : ": " + error.getMessage());
+        }
+    }
+
+    /**
+     * Creates a deleter
+     * @param parallelism The maximum number of deletions in progress at the same time
+     * @param gracePeriodSeconds The grace period of the deletions, or a negative value for the default grace period
+     */
+    public DeploymentDeleter(int parallelism, int gracePeriodSeconds) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid deletion parallelism: " + parallelism);
+        }
+        this.gracePeriodSeconds = gracePeriodSeconds;
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(parallelism, parallelism, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "deployment-deleter");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPool.allowCoreThreadTimeOut(true); //no threads are kept between the moves
+        executor = threadPool;
+    }
+
+    /**
+     * Starts deleting deployments
+     * @param deployments The deployments to delete
+     * @return Future of the outcomes, in the order of the given deployments, completed when all deletions are done
+     */
+    public CompletableFuture<List<Outcome>> deleteAll(List<IDeployment> deployments) {
+        List<CompletableFuture<Outcome>> outcomes = new ArrayList<>();
+        for (IDeployment deployment : deployments) {
+            String deploymentName = deployment.getName();
+            outcomes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    deployment.deleteInBackground(gracePeriodSeconds);
+                    return new Outcome(deploymentName, null);
+                } catch (DeploymentDeleteException e) {
+                    return new Outcome(deploymentName, e);
+                } catch (RuntimeException e) {
+                    return new Outcome(deploymentName, new DeploymentDeleteException(e.toString()));
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> outcomes.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Stops the threads of the deleter after the started deletions
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
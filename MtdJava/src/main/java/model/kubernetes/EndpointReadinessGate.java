@@ -0,0 +1,102 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import com.google.gson.reflect.TypeToken;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.Configuration;
+import io.kubernetes.client.openapi.apis.DiscoveryV1Api;
+import io.kubernetes.client.openapi.models.V1Endpoint;
+import io.kubernetes.client.openapi.models.V1EndpointSlice;
+import io.kubernetes.client.openapi.models.V1EndpointSliceList;
+import io.kubernetes.client.util.Watch;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Waits until a pod is listed as a ready endpoint of a Service, by watching the EndpointSlices of the Service. Traffic
+ * of the Service only reaches the pod from then on, so the previous pods can be deleted without dropping requests.
+ */
+public class EndpointReadinessGate {
+    public static final String SERVICE_NAME_LABEL = "kubernetes.io/service-name";
+
+    private final ApiClient apiClient;
+    private final String namespace;
+
+    /**
+     * Creates a gate for the Services of a namespace using the default API client
+     * @param namespace The namespace
+     */
+    public EndpointReadinessGate(String namespace) {
+        this(Configuration.getDefaultApiClient(), namespace);
+    }
+
+    /**
+     * Creates a gate for the Services of a namespace
+     * @param apiClient The API client
+     * @param namespace The namespace
+     */
+    public EndpointReadinessGate(ApiClient apiClient, String namespace) {
+        this.apiClient = apiClient;
+        this.namespace = namespace;
+    }
+
+    /**
+     * Waits in the background until a pod is a ready endpoint of a Service
+     * @param serviceName The name of the Service
+     * @param podName The name of the pod
+     * @param timeoutMillis The maximum time to wait
+     * @return Future completed when the pod is a ready endpoint, completed exceptionally with a PodNotReadyException if
+     * it was not listed as ready in time
+     */
+    public CompletableFuture<Void> awaitReadyEndpoint(String serviceName, String podName, long timeoutMillis) {
+        DiscoveryV1Api api = new DiscoveryV1Api(apiClient);
+        String labelSelector = SERVICE_NAME_LABEL + "=" + serviceName;
+        return new ResourceWatcher<V1EndpointSlice>(apiClient,
+                (resourceVersion, timeoutSeconds, watch) -> api.listNamespacedEndpointSliceCall(namespace, null,
+                        null, null, null, labelSelector, null, resourceVersion, null, timeoutSeconds, watch, null),
+                V1EndpointSliceList.class, new TypeToken<Watch.Response<V1EndpointSlice>>() {}.getType(),
+                "pod " + podName + " to be a ready endpoint of service " + serviceName)
+                .awaitMatch(slice -> isReadyEndpoint(slice, podName) ? Boolean.TRUE : null, timeoutMillis)
+                .thenApply(ready -> null);
+    }
+
+    /**
+     * Checks whether a pod is a ready endpoint in an EndpointSlice
+     * @param slice The EndpointSlice
+     * @param podName The name of the pod
+     * @return True if the slice lists an address of the pod as ready
+     */
+    static boolean isReadyEndpoint(V1EndpointSlice slice, String podName) {
+        if (slice.getEndpoints() == null) {
+            return false;
+        }
+        for (V1Endpoint endpoint : slice.getEndpoints()) {
+            boolean isPod = endpoint.getTargetRef() != null && "Pod".equals(endpoint.getTargetRef().getKind())
+                    && podName.equals(endpoint.getTargetRef().getName());
+            // An unknown readiness is to be interpreted as ready
+            boolean ready = endpoint.getConditions() == null
+                    || !Boolean.FALSE.equals(endpoint.getConditions().getReady());
+            if (isPod && ready && !endpoint.getAddresses().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -24,6 +24,7 @@ import model.kubernetes.exception.DeploymentDeleteException;
 import model.kubernetes.exception.DeploymentNotFoundException;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IDeployment {
     String getFileName();
@@ -73,7 +74,15 @@ public interface IDeployment {
     void delete() throws DeploymentDeleteException;
 
     /**
-     * Creates and returns a list of deployments whose name contain this basename.
+     * Deletes this deployment from the cluster without waiting for its pods. The pods are deleted by the garbage
+     * collector afterwards, and a deployment that is already gone counts as deleted.
+     * @param gracePeriodSeconds The grace period of the deletion, or a negative value for the default grace period.
+     * @throws DeploymentDeleteException Throws exception if deployment could not be deleted.
+     */
+    void deleteInBackground(int gracePeriodSeconds) throws DeploymentDeleteException;
+
+    /**
+     * Creates and returns a list of the deployments applied from the same config file as this deployment.
      *
      * @param namespace the namespace in which to look for deployments.
      * @return a list of related deployments.
@@ -81,4 +90,46 @@ public interface IDeployment {
      * @throws DeploymentNotFoundException
      */
     List<IDeployment> getRelatedDeployments(String namespace) throws KubectlException, DeploymentNotFoundException;
+
+    /**
+     * Waits in the background for a pod of this deployment to become ready.
+     * @param timeoutMillis The maximum time to wait.
+     * @return Future of the ready pod, completed exceptionally with a PodNotReadyException if a pod of this deployment
+     * failed or no pod became ready in time.
+     */
+    CompletableFuture<IPod> awaitReadyPod(long timeoutMillis);
+
+    /**
+     * Applies the deployment with a UUID string appended to the deployment name in the background.
+     * @return Future of the new deployment name, completed exceptionally with an ApplyException if it failed.
+     */
+    default CompletableFuture<String> applyUniqueAsync() {
+        return ApiExecutor.supplyAsync(this::applyUnique);
+    }
+
+    /**
+     * Gets the pods of this deployment in the background.
+     * @return Future of the pods, completed exceptionally with a DeploymentNotFoundException if they were not found.
+     */
+    default CompletableFuture<List<IPod>> getPodsAsync() {
+        return ApiExecutor.supplyAsync(this::getPods);
+    }
+
+    /**
+     * Deletes this deployment from the cluster in the background.
+     * @return Future completed when the deployment is deleted, completed exceptionally with a
+     * DeploymentDeleteException if it could not be deleted.
+     */
+    default CompletableFuture<Void> deleteAsync() {
+        return ApiExecutor.runAsync(this::delete);
+    }
+
+    /**
+     * Finds the deployments applied from the same config file as this deployment in the background.
+     * @param namespace the namespace in which to look for deployments.
+     * @return Future of the related deployments.
+     */
+    default CompletableFuture<List<IDeployment>> getRelatedDeploymentsAsync(String namespace) {
+        return ApiExecutor.supplyAsync(() -> getRelatedDeployments(namespace));
+    }
 }
@@ -23,6 +23,7 @@ import model.kubernetes.exception.PodNotFoundException;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface INode {
 
@@ -61,4 +62,33 @@ public interface INode {
     void deleteLabel(String key) throws NodeLabelException;
 
     double getAllocatableCpu();
-}
\ No newline at end of file
+
+    double getAllocatableMemory();
+
+    /**
+     * Adds a label to this node in the background
+     * @param key Label key
+     * @param value Label value
+     * @return Future completed when the label is added, exceptionally with a NodeLabelException if it failed
+     */
+    default CompletableFuture<Void> addLabelAsync(String key, String value) {
+        return ApiExecutor.runAsync(() -> addLabel(key, value));
+    }
+
+    /**
+     * Gets all pods on this node in the background
+     * @return Future of the pods, completed exceptionally with a PodNotFoundException if they were not found
+     */
+    default CompletableFuture<List<IPod>> getPodsAsync() {
+        return ApiExecutor.supplyAsync(this::getPods);
+    }
+
+    /**
+     * Deletes a label from this node in the background
+     * @param key Key of the label to delete
+     * @return Future completed when the label is deleted, exceptionally with a NodeLabelException if it failed
+     */
+    default CompletableFuture<Void> deleteLabelAsync(String key) {
+        return ApiExecutor.runAsync(() -> deleteLabel(key));
+    }
+}
@@ -23,6 +23,7 @@ import model.kubernetes.exception.PodDeleteException;
 import model.kubernetes.exception.PodLabelException;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface IPod {
     /**
@@ -77,4 +78,31 @@ public interface IPod {
      * @throws PodDeleteException Throws if pod could not be deleted
      */
     void delete() throws PodDeleteException;
+
+    /**
+     * Adds a label to the pod in the background
+     * @param key The label key
+     * @param value The label value
+     * @return Future completed when the label is added, exceptionally with a PodLabelException if it failed
+     */
+    default CompletableFuture<Void> addLabelAsync(String key, String value) {
+        return ApiExecutor.runAsync(() -> addLabel(key, value));
+    }
+
+    /**
+     * Deletes a label from the pod in the background
+     * @param key Key of the label to delete
+     * @return Future completed when the label is deleted, exceptionally with a PodLabelException if it failed
+     */
+    default CompletableFuture<Void> deleteLabelAsync(String key) {
+        return ApiExecutor.runAsync(() -> deleteLabel(key));
+    }
+
+    /**
+     * Deletes the pod from the cluster in the background
+     * @return Future completed when the pod is deleted, exceptionally with a PodDeleteException if it failed
+     */
+    default CompletableFuture<Void> deleteAsync() {
+        return ApiExecutor.runAsync(this::delete);
+    }
 }
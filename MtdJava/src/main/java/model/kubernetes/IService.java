@@ -22,6 +22,12 @@ import model.kubernetes.exception.ApplyException;
 import model.kubernetes.exception.KubeServiceDeleteException;
 
 public interface IService {
+    /**
+     * Gets the name of the service
+     * @return The service name
+     */
+    String getName();
+
     /**
      * Applies the service to the cluster
      * @throws ApplyException Throws if it could not be applied
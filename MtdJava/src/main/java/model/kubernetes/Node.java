@@ -42,11 +42,19 @@ public class Node implements INode {
     }
 
     /**
-     * Gets a node from the cluster by its node name
+     * Gets a node from the cluster by its node name, from the shared cluster cache if there is one
      * @param name The node name
      * @throws NodeNotFoundException Throws exception if node is not found
      */
     public Node(String name) throws NodeNotFoundException {
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            v1Node = cache.getNode(name);
+            if (v1Node == null) {
+                throw new NodeNotFoundException("Node " + name + " not found");
+            }
+            return;
+        }
         try {
             v1Node = Kubectl.get(V1Node.class)
                     .name(name)
@@ -119,15 +127,27 @@ public class Node implements INode {
         } catch (KubectlException e) {
             throw new NodeLabelException(e.getMessage());
         }
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            cache.update(v1Node);
+        }
     }
 
     /**
-     * Get all pods on this node
+     * Get all pods on this node, from the shared cluster cache if it holds the namespace of this node
      * @return List of pods on this node
      * @throws PodNotFoundException Throws if no pods found on this node
      */
     @Override
     public List<IPod> getPods() throws PodNotFoundException {
+        ClusterCache cache = ClusterCache.getShared(namespace);
+        if (cache != null) {
+            List<IPod> podList = new ArrayList<>();
+            for (V1Pod tmp : cache.getPodsOnNode(getName())) {
+                podList.add(new Pod(tmp));
+            }
+            return podList;
+        }
         try {
             String fieldSelector = "spec.nodeName=" + v1Node.getMetadata().getName();
             ListOptions listOptions = new ListOptions();
@@ -166,4 +186,14 @@ public class Node implements INode {
         return Objects.requireNonNull(Objects.requireNonNull(v1Node.getStatus()).getAllocatable()).get("cpu").getNumber().doubleValue();
     }
 
+    /**
+     * Fetch and return the node's allocatable memory, the amount of memory on the node that can be used by normal pods.
+     *
+     * @return the fetched value for the allocatable memory in bytes.
+     */
+    @Override
+    public double getAllocatableMemory() {
+        return Objects.requireNonNull(Objects.requireNonNull(v1Node.getStatus()).getAllocatable()).get("memory").getNumber().doubleValue();
+    }
+
 }
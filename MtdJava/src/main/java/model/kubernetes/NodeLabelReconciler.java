@@ -0,0 +1,230 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.custom.V1Patch;
+import io.kubernetes.client.extended.kubectl.Kubectl;
+import io.kubernetes.client.extended.kubectl.exception.KubectlException;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.Configuration;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Node;
+import io.kubernetes.client.util.PatchUtils;
+import io.kubernetes.client.util.generic.options.ListOptions;
+import model.kubernetes.exception.NodeLabelException;
+import model.kubernetes.exception.NodeNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves a node label, such as the label marking the active node, to a set of nodes. The labelled nodes are found with
+ * a single label selector request, or in the shared cluster cache if there is one, instead of reading the labels of
+ * every worker node. Only nodes whose label changes are patched, each with a single merge patch, and the patches are
+ * sent in parallel.
+ */
+public class NodeLabelReconciler {
+    public static final int DEFAULT_PARALLELISM = 8;
+    private static final long IDLE_SECONDS = 10;
+
+    /**
+     * Sets or removes the label on a node
+     */
+    @FunctionalInterface
+    interface LabelPatcher {
+        /**
+         * @param nodeName The node name
+         * @param value The new label value, or null to remove the label
+         * @return The patched node
+         * @throws ApiException Throws if the node could not be patched
+         */
+        V1Node patch(String nodeName, String value) throws ApiException;
+    }
+
+    private final String labelKey;
+    private final LabelPatcher labelPatcher;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a reconciler of a node label using the default API client
+     * @param labelKey The label key
+     */
+    public NodeLabelReconciler(String labelKey) {
+        this(labelKey, Configuration.getDefaultApiClient(), DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates a reconciler of a node label
+     * @param labelKey The label key
+     * @param apiClient The API client
+     * @param parallelism The maximum number of patches in progress at the same time
+     */
+    public NodeLabelReconciler(String labelKey, ApiClient apiClient, int parallelism) {
+        this(labelKey, mergePatcher(labelKey, apiClient), parallelism);
+    }
+
+    /**
+     * Creates a reconciler of a node label
+     * @param labelKey The label key
+     * @param labelPatcher Sets or removes the label on a node
+     * @param parallelism The maximum number of patches in progress at the same time
+     */
+    NodeLabelReconciler(String labelKey, LabelPatcher labelPatcher, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid label parallelism: " + parallelism);
+        }
+        this.labelKey = labelKey;
+        this.labelPatcher = labelPatcher;
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(parallelism, parallelism, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "node-label-reconciler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPool.allowCoreThreadTimeOut(true);
+        executor = threadPool;
+    }
+
+    /**
+     * Gets the nodes carrying the label
+     * @return List of labelled nodes
+     * @throws NodeNotFoundException Throws if the nodes could not be listed
+     */
+    public List<INode> getLabelledNodes() throws NodeNotFoundException {
+        List<INode> labelledNodes = new ArrayList<>();
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            for (V1Node v1Node : cache.getNodes()) {
+                Map<String, String> labels = v1Node.getMetadata().getLabels();
+                if (labels != null && labels.containsKey(labelKey)) {
+                    labelledNodes.add(new Node(v1Node));
+                }
+            }
+            return labelledNodes;
+        }
+        ListOptions listOptions = new ListOptions();
+        listOptions.setLabelSelector(labelKey);
+        try {
+            for (V1Node v1Node : Kubectl.get(V1Node.class).options(listOptions).execute()) {
+                labelledNodes.add(new Node(v1Node));
+            }
+        } catch (KubectlException e) {
+            throw new NodeNotFoundException(e.getMessage());
+        }
+        return labelledNodes;
+    }
+
+    /**
+     * Sets the label on exactly the given nodes, after finding the currently labelled nodes
+     * @param targetNodeNames The names of the nodes that should carry the label
+     * @param value The label value
+     * @return The nodes the label was removed from
+     * @throws NodeNotFoundException Throws if the labelled nodes could not be listed
+     * @throws NodeLabelException Throws if a node could not be patched, after all other patches are done
+     */
+    public List<INode> reconcile(Collection<String> targetNodeNames, String value)
+            throws NodeNotFoundException, NodeLabelException {
+        return reconcile(getLabelledNodes(), targetNodeNames, value);
+    }
+
+    /**
+     * Sets the label on exactly the given nodes. Adds the label to target nodes that do not carry it with the given
+     * value and removes it from the other labelled nodes, so unchanged nodes cost no request.
+     * @param labelledNodes The nodes currently carrying the label
+     * @param targetNodeNames The names of the nodes that should carry the label
+     * @param value The label value
+     * @return The nodes the label was removed from
+     * @throws NodeLabelException Throws if a node could not be patched, after all other patches are done
+     */
+    public List<INode> reconcile(List<INode> labelledNodes, Collection<String> targetNodeNames, String value)
+            throws NodeLabelException {
+        List<String> unchangedNodeNames = new ArrayList<>();
+        List<INode> unlabelledNodes = new ArrayList<>();
+        List<CompletableFuture<String>> patches = new ArrayList<>();
+        for (INode node : labelledNodes) {
+            if (!targetNodeNames.contains(node.getName())) {
+                System.out.println("Deleting label from: " + node.getName());
+                patches.add(patchAsync(node.getName(), null));
+                unlabelledNodes.add(node);
+            } else if (value.equals(node.getLabels().get(labelKey))) {
+                unchangedNodeNames.add(node.getName());
+            }
+        }
+        for (String nodeName : targetNodeNames) {
+            if (!unchangedNodeNames.contains(nodeName)) {
+                patches.add(patchAsync(nodeName, value));
+            }
+        }
+        StringJoiner errors = new StringJoiner("; ");
+        for (CompletableFuture<String> patch : patches) {
+            String error = patch.join();
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+        if (errors.length() > 0) {
+            throw new NodeLabelException(errors.toString());
+        }
+        return unlabelledNodes;
+    }
+
+    /**
+     * Patches the label of a node in the background
+     * @return Future of the error message, or of null if the node was patched
+     */
+    private CompletableFuture<String> patchAsync(String nodeName, String value) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                V1Node v1Node = labelPatcher.patch(nodeName, value);
+                ClusterCache cache = ClusterCache.getShared();
+                if (cache != null && v1Node != null) {
+                    cache.update(v1Node);
+                }
+                return null;
+            } catch (ApiException | RuntimeException e) {
+                return nodeName + ": " + Objects.requireNonNullElse(e.getMessage(), e.toString());
+            }
+        }, executor);
+    }
+
+    /**
+     * Creates a patcher sending a JSON merge patch of the label
+     */
+    private static LabelPatcher mergePatcher(String labelKey, ApiClient apiClient) {
+        CoreV1Api api = new CoreV1Api(apiClient);
+        return (nodeName, value) -> {
+            // Label keys and values cannot contain quotes, null removes the label
+            String patch = String.format("{\"metadata\":{\"labels\":{\"%s\":%s}}}", labelKey,
+                    value == null ? "null" : "\"" + value + "\"");
+            return PatchUtils.patch(V1Node.class,
+                    () -> api.patchNodeCall(nodeName, new V1Patch(patch), null, null, null, null, null),
+                    V1Patch.PATCH_FORMAT_JSON_MERGE_PATCH, apiClient);
+        };
+    }
+}
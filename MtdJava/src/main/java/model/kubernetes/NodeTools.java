@@ -26,15 +26,32 @@ import model.kubernetes.exception.NodeNotFoundException;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class NodeTools {
+    private static final List<String> CONTROL_PLANE_LABELS = List.of(
+            "node-role.kubernetes.io/master",
+            "node-role.kubernetes.io/control-plane",
+            "node.kubernetes.io/microk8s-controlplane");
+
     /**
-     * Get all worker nodes on the cluster
+     * Get all worker nodes on the cluster, from the shared cluster cache if there is one
      *
      * @return List of nodes
      * @throws NodeNotFoundException Throws if nodes not found
      */
     public static List<INode> getWorkerNodes() throws NodeNotFoundException {
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            List<INode> nodeList = new LinkedList<>();
+            for (V1Node v1Node : cache.getNodes()) {
+                Map<String, String> labels = v1Node.getMetadata().getLabels();
+                if (labels == null || CONTROL_PLANE_LABELS.stream().noneMatch(labels::containsKey)) {
+                    nodeList.add(new Node(v1Node));
+                }
+            }
+            return nodeList;
+        }
         ListOptions listOptions = new ListOptions();
         String notControlPlane =
                 "!node-role.kubernetes.io/master," +
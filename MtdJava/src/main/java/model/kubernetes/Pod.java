@@ -35,12 +35,20 @@ public class Pod implements IPod {
     private V1Pod v1Pod;
 
     /**
-     * Gets pod object from the cluster by pod name and namspeace
+     * Gets pod object from the cluster by pod name and namspeace, from the shared cluster cache if it holds the namespace
      * @param podName The pod name
      * @param namespace The namespace
      * @throws PodNotFoundException Throws if pod is not found
      */
     public Pod(String podName, String namespace) throws PodNotFoundException {
+        ClusterCache cache = ClusterCache.getShared(namespace);
+        if (cache != null) {
+            v1Pod = cache.getPod(podName);
+            if (v1Pod == null) {
+                throw new PodNotFoundException("Pod " + podName + " not found");
+            }
+            return;
+        }
         try {
             v1Pod = Kubectl.get(V1Pod.class)
                     .namespace(namespace)
@@ -138,6 +146,10 @@ public class Pod implements IPod {
         } catch (KubectlException e) {
             throw new PodLabelException(e.getMessage());
         }
+        ClusterCache cache = ClusterCache.getShared();
+        if (cache != null) {
+            cache.update(v1Pod);
+        }
     }
 
     /**
@@ -171,6 +183,10 @@ public class Pod implements IPod {
                     .namespace(v1Pod.getMetadata().getNamespace())
                     .name(v1Pod.getMetadata().getName())
                     .execute();
+            ClusterCache cache = ClusterCache.getShared();
+            if (cache != null) {
+                cache.delete(v1Pod);
+            }
             v1Pod = null;
         } catch (KubectlException e) {
             throw new PodDeleteException(e.getMessage());
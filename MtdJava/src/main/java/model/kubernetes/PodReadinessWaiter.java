@@ -0,0 +1,113 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import com.google.gson.reflect.TypeToken;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.Configuration;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.*;
+import io.kubernetes.client.util.Watch;
+import model.kubernetes.exception.PodNotReadyException;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Waits for a pod to become ready by watching the pods matching a label selector. The wait completes as soon as the
+ * API server reports a matching pod as ready, instead of polling the pods once per second. It fails right away if a
+ * matching pod fails or one of its containers is stuck in a state it does not recover from without a change, such as
+ * ImagePullBackOff.
+ */
+public class PodReadinessWaiter {
+    static final Set<String> TERMINAL_REASONS = Set.of("ErrImagePull", "ImagePullBackOff", "InvalidImageName",
+            "CrashLoopBackOff", "CreateContainerConfigError", "CreateContainerError");
+
+    private final ApiClient apiClient;
+    private final String namespace;
+
+    /**
+     * Creates a waiter for the pods of a namespace using the default API client
+     * @param namespace The namespace
+     */
+    public PodReadinessWaiter(String namespace) {
+        this(Configuration.getDefaultApiClient(), namespace);
+    }
+
+    /**
+     * Creates a waiter for the pods of a namespace
+     * @param apiClient The API client
+     * @param namespace The namespace
+     */
+    public PodReadinessWaiter(ApiClient apiClient, String namespace) {
+        this.apiClient = apiClient;
+        this.namespace = namespace;
+    }
+
+    /**
+     * Waits in the background for a pod to become ready
+     * @param labelSelector The label selector of the watched pods
+     * @param filter Further condition on the watched pods
+     * @param timeoutMillis The maximum time to wait
+     * @return Future of the ready pod, completed exceptionally with a PodNotReadyException if a matching pod failed or
+     * no pod became ready in time
+     */
+    public CompletableFuture<IPod> awaitReady(String labelSelector, Predicate<V1Pod> filter, long timeoutMillis) {
+        CoreV1Api api = new CoreV1Api(apiClient);
+        return new ResourceWatcher<V1Pod>(apiClient,
+                (resourceVersion, timeoutSeconds, watch) -> api.listNamespacedPodCall(namespace, null, null, null,
+                        null, labelSelector, null, resourceVersion, null, timeoutSeconds, watch, null),
+                V1PodList.class, new TypeToken<Watch.Response<V1Pod>>() {}.getType(),
+                "a ready pod matching " + labelSelector)
+                .awaitMatch(pod -> filter.test(pod) && checkReady(pod) ? new Pod(pod) : null, timeoutMillis);
+    }
+
+    /**
+     * Checks whether a pod is ready
+     * @param pod The pod
+     * @return True if the pod is running and its Ready condition is true
+     * @throws PodNotReadyException Throws if the pod failed or one of its containers is stuck
+     */
+    static boolean checkReady(V1Pod pod) throws PodNotReadyException {
+        V1PodStatus status = pod.getStatus();
+        if (status == null) {
+            return false;
+        }
+        String podName = pod.getMetadata().getName();
+        if ("Failed".equals(status.getPhase())) {
+            throw new PodNotReadyException("Pod " + podName + " failed: " + status.getReason());
+        }
+        if (status.getContainerStatuses() != null) {
+            for (V1ContainerStatus containerStatus : status.getContainerStatuses()) {
+                V1ContainerStateWaiting waiting = containerStatus.getState() == null
+                        ? null : containerStatus.getState().getWaiting();
+                if (waiting != null && TERMINAL_REASONS.contains(waiting.getReason())) {
+                    throw new PodNotReadyException(String.format("Container %s of pod %s is stuck in %s: %s",
+                            containerStatus.getName(), podName, waiting.getReason(), waiting.getMessage()));
+                }
+            }
+        }
+        if (!"Running".equals(status.getPhase()) || status.getConditions() == null) {
+            return false;
+        }
+        return status.getConditions().stream()
+                .anyMatch(condition -> condition.getType().equals("Ready") && condition.getStatus().equals("True"));
+    }
+}
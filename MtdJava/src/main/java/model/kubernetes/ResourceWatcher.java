@@ -0,0 +1,165 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.util.Watch;
+import model.kubernetes.exception.PodNotReadyException;
+import okhttp3.Call;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lists resources and watches them from there until one of them matches, so the wait ends with the watch event of the
+ * matching change instead of the next poll. The resources are listed again whenever a watch fails, so no change is
+ * missed.
+ * @param <T> The type of the watched resources
+ */
+class ResourceWatcher<T extends KubernetesObject> {
+    // Watches are renewed before the read timeout of the API client runs out.
+    private static final int MAX_WATCH_SECONDS = 5;
+    private static final long RETRY_MILLIS = 200;
+    private static final ExecutorService WATCHERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "resource-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates the list or watch request of the watched resources
+     */
+    @FunctionalInterface
+    interface CallFactory {
+        Call create(String resourceVersion, Integer timeoutSeconds, Boolean watch) throws ApiException;
+    }
+
+    /**
+     * Checks whether a resource is the awaited one
+     * @param <T> The type of the watched resources
+     * @param <R> The result of the wait
+     */
+    @FunctionalInterface
+    interface Matcher<T, R> {
+        /**
+         * @param object The listed or changed resource
+         * @return The result of the wait, or null to keep waiting
+         * @throws PodNotReadyException Throws to end the wait unsuccessfully
+         */
+        R match(T object) throws PodNotReadyException;
+    }
+
+    private final ApiClient apiClient;
+    private final CallFactory callFactory;
+    private final Type listType;
+    private final Type watchType;
+    private final String description;
+
+    /**
+     * @param apiClient The API client
+     * @param callFactory The factory of the list and watch requests
+     * @param listType The type of the list response
+     * @param watchType The type of the watch events
+     * @param description Description of the awaited resource for messages
+     */
+    ResourceWatcher(ApiClient apiClient, CallFactory callFactory, Type listType, Type watchType, String description) {
+        this.apiClient = apiClient;
+        this.callFactory = callFactory;
+        this.listType = listType;
+        this.watchType = watchType;
+        this.description = description;
+    }
+
+    /**
+     * Waits in the background for a resource to match
+     * @param matcher The condition of the awaited resource
+     * @param timeoutMillis The maximum time to wait
+     * @param <R> The result of the wait
+     * @return Future of the result of the matching resource, completed exceptionally with a PodNotReadyException if the
+     * matcher failed or no resource matched in time
+     */
+    <R> CompletableFuture<R> awaitMatch(Matcher<T, R> matcher, long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return watchUntilMatch(matcher, deadline);
+            } catch (PodNotReadyException e) {
+                throw new CompletionException(e);
+            }
+        }, WATCHERS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R watchUntilMatch(Matcher<T, R> matcher, long deadline) throws PodNotReadyException {
+        String resourceVersion = null;
+        while (true) {
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                throw new PodNotReadyException("Timed out waiting for " + description);
+            }
+            try {
+                if (resourceVersion == null) {
+                    KubernetesListObject list = apiClient.<KubernetesListObject>execute(
+                            callFactory.create(null, null, null), listType).getData();
+                    for (KubernetesObject object : list.getItems()) {
+                        R result = matcher.match((T) object);
+                        if (result != null) {
+                            return result;
+                        }
+                    }
+                    resourceVersion = list.getMetadata().getResourceVersion();
+                }
+                int watchSeconds = (int) Math.min(MAX_WATCH_SECONDS, (remainingMillis + 999) / 1000);
+                try (Watch<T> watch = Watch.createWatch(apiClient,
+                        callFactory.create(resourceVersion, watchSeconds, true), watchType)) {
+                    for (Watch.Response<T> event : watch) {
+                        if (event.type.equals("ERROR")) {
+                            resourceVersion = null; //the resource version expired, list again
+                            break;
+                        }
+                        resourceVersion = event.object.getMetadata().getResourceVersion();
+                        if (!event.type.equals("DELETED")) {
+                            R result = matcher.match(event.object);
+                            if (result != null) {
+                                return result;
+                            }
+                        }
+                    }
+                }
+            } catch (ApiException | IOException | RuntimeException e) {
+                System.out.printf("Catching %s caused by watching %s:%n", e.getClass(), description);
+                System.out.println(e.getMessage());
+                resourceVersion = null;
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new PodNotReadyException("Interrupted while waiting for " + description);
+                }
+            }
+        }
+    }
+}
@@ -58,6 +58,15 @@ public class Service implements IService {
         v1Service = (V1Service) Yaml.load(file);
     }
 
+    /**
+     * Gets the name of the service
+     * @return The service name
+     */
+    @Override
+    public String getName() {
+        return v1Service.getMetadata().getName();
+    }
+
     /**
      * Applies the service to the cluster
      * @throws ApplyException Throws if it could not be applied
@@ -0,0 +1,76 @@
+package leaderelection;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ZooKeeper client which counts the synchronous reads it issues, used to measure the read load of election code.
+ */
+public class CountingZooKeeper extends ZooKeeper {
+    private final AtomicLong readCount = new AtomicLong();
+
+    /**
+     * Constructor for CountingZooKeeper, see {@link ZooKeeper#ZooKeeper(String, int, Watcher)}.
+     */
+    public CountingZooKeeper(String connectString, int sessionTimeout, Watcher watcher) throws IOException {
+        super(connectString, sessionTimeout, watcher);
+    }
+
+    @Override
+    public List<String> getChildren(String path, Watcher watcher) throws KeeperException, InterruptedException {
+        readCount.incrementAndGet();
+        return super.getChildren(path, watcher);
+    }
+
+    @Override
+    public List<String> getChildren(String path, boolean watch) throws KeeperException, InterruptedException {
+        readCount.incrementAndGet();
+        return super.getChildren(path, watch);
+    }
+
+    @Override
+    public Stat exists(String path, Watcher watcher) throws KeeperException, InterruptedException {
+        readCount.incrementAndGet();
+        return super.exists(path, watcher);
+    }
+
+    @Override
+    public Stat exists(String path, boolean watch) throws KeeperException, InterruptedException {
+        readCount.incrementAndGet();
+        return super.exists(path, watch);
+    }
+
+    @Override
+    public byte[] getData(String path, Watcher watcher, Stat stat) throws KeeperException, InterruptedException {
+        readCount.incrementAndGet();
+        return super.getData(path, watcher, stat);
+    }
+
+    @Override
+    public byte[] getData(String path, boolean watch, Stat stat) throws KeeperException, InterruptedException {
+        readCount.incrementAndGet();
+        return super.getData(path, watch, stat);
+    }
+
+    /**
+     * Method for obtaining the number of reads issued through this client.
+     *
+     * @return the number of synchronous reads.
+     */
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    /**
+     * Method for resetting the read counter.
+     */
+    public void resetReadCount() {
+        readCount.set(0);
+    }
+}
@@ -0,0 +1,201 @@
+package leaderelection;
+
+import org.apache.zookeeper.ZooKeeper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * Class running simulated candidates through repeated elections against an embedded ZooKeeper server. Each candidate
+ * runs in its own thread with its own ZooKeeper session and an injected identity, so no Kubernetes cluster is needed.
+ */
+public class ElectionTestBench implements AutoCloseable {
+    private static final int CANDIDATES_PER_NODE = 2;
+    private static final long TIMEOUT_MILLISECONDS = 300_000;
+
+    private final EmbeddedZooKeeper embeddedZooKeeper;
+    private final List<ZooKeeper> zooKeepers = new ArrayList<>();
+    private final List<CandidateIdentity> candidateIdentities = new ArrayList<>();
+
+    /**
+     * Interface for one round of a simulated candidate, e.g. a call of Candidate.runElection.
+     */
+    public interface Contender {
+        boolean runElection() throws Exception;
+    }
+
+    /**
+     * Interface for creating a simulated candidate from its ZooKeeper session and identity.
+     */
+    public interface ContenderFactory {
+        Contender create(ZooKeeper zooKeeper, int ensembleSize, CandidateIdentity candidateIdentity) throws Exception;
+    }
+
+    /**
+     * Constructor for ElectionTestBench. Starts the embedded server and opens one session per candidate. Candidate i
+     * is called candidate-i and shares its node with the other candidates of the same CANDIDATES_PER_NODE group.
+     *
+     * @param numCandidates the number of simulated candidates.
+     * @param loadSources the load source of each candidate, given its index.
+     * @throws Exception
+     */
+    public ElectionTestBench(int numCandidates, IntFunction<DoubleSupplier> loadSources) throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        for (int i = 0; i < numCandidates; i++) {
+            zooKeepers.add(embeddedZooKeeper.connect());
+            candidateIdentities.add(new CandidateIdentity("candidate-" + i, "node-" + i / CANDIDATES_PER_NODE,
+                    loadSources.apply(i)));
+        }
+    }
+
+    /**
+     * Method for running the candidates until the given number of leaders was elected. The latency of a round is the
+     * time between the election of two consecutive leaders.
+     *
+     * @param rounds the number of leaders to elect.
+     * @param contenderFactory the factory creating the simulated candidates.
+     * @return the measured throughput, latencies and ZooKeeper requests.
+     * @throws Exception the first exception thrown by a candidate before the leaders were elected.
+     */
+    public Result run(int rounds, ContenderFactory contenderFactory) throws Exception {
+        int ensembleSize = zooKeepers.size();
+        List<Contender> contenders = new ArrayList<>();
+        for (int i = 0; i < ensembleSize; i++) {
+            contenders.add(contenderFactory.create(zooKeepers.get(i), ensembleSize, candidateIdentities.get(i)));
+        }
+        List<String> leaders = new ArrayList<>();
+        List<Long> electionTimes = new ArrayList<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(ensembleSize);
+
+        long startPackets = embeddedZooKeeper.getPacketsReceived();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ensembleSize; i++) {
+            Contender contender = contenders.get(i);
+            String hostName = candidateIdentities.get(i).getHostName();
+            executor.submit(() -> {
+                try {
+                    while (true) {
+                        synchronized (leaders) {
+                            if (leaders.size() >= rounds || failure.get() != null) {
+                                return;
+                            }
+                        }
+                        if (contender.runElection()) {
+                            synchronized (leaders) {
+                                leaders.add(hostName);
+                                electionTimes.add(System.nanoTime());
+                                leaders.notifyAll();
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    synchronized (leaders) {
+                        if (leaders.size() < rounds) { //failures caused by stopping the candidates are ignored
+                            failure.compareAndSet(null, e);
+                        }
+                        leaders.notifyAll();
+                    }
+                }
+            });
+        }
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLISECONDS;
+        synchronized (leaders) {
+            while (leaders.size() < rounds && failure.get() == null && System.currentTimeMillis() < deadline) {
+                leaders.wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        }
+        long endTime = System.nanoTime();
+        long requests = embeddedZooKeeper.getPacketsReceived() - startPackets;
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        synchronized (leaders) {
+            List<Double> latencies = new ArrayList<>();
+            long previous = startTime;
+            for (long electionTime : electionTimes) {
+                latencies.add((electionTime - previous) / 1e6);
+                previous = electionTime;
+            }
+            return new Result(new ArrayList<>(leaders), latencies, endTime - startTime, requests);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (ZooKeeper zooKeeper : zooKeepers) {
+                zooKeeper.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            embeddedZooKeeper.close();
+        }
+    }
+
+    /**
+     * Class holding the outcome of a run of the test bench.
+     */
+    public static class Result {
+        private final List<String> leaders;
+        private final List<Double> sortedLatencies;
+        private final long elapsedNanos;
+        private final long requests;
+
+        Result(List<String> leaders, List<Double> latencies, long elapsedNanos, long requests) {
+            this.leaders = leaders;
+            this.sortedLatencies = new ArrayList<>(latencies);
+            Collections.sort(sortedLatencies);
+            this.elapsedNanos = elapsedNanos;
+            this.requests = requests;
+        }
+
+        /**
+         * @return the hostnames of the elected leaders, in the order of their election.
+         */
+        public List<String> getLeaders() {
+            return leaders;
+        }
+
+        public double getRoundsPerSecond() {
+            return leaders.size() / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @param quantile the quantile between 0.0 and 1.0.
+         * @return the round latency in milliseconds at the given quantile, or NaN if no round completed.
+         */
+        public double getLatencyPercentile(double quantile) {
+            if (sortedLatencies.isEmpty()) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(quantile * sortedLatencies.size()) - 1;
+            return sortedLatencies.get(Math.max(0, index));
+        }
+
+        /**
+         * @return the number of requests the ZooKeeper server received per completed round.
+         */
+        public double getRequestsPerRound() {
+            return (double) requests / Math.max(1, leaders.size());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f, %.1f, %.1f, %.1f", getRoundsPerSecond(), getLatencyPercentile(0.5),
+                    getLatencyPercentile(0.99), getRequestsPerRound());
+        }
+    }
+}
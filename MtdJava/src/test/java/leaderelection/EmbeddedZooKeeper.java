@@ -0,0 +1,89 @@
+package leaderelection;
+
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Class running a standalone ZooKeeper server inside the test JVM, listening on a free local port.
+ */
+public class EmbeddedZooKeeper implements AutoCloseable {
+    private static final int TICK_TIME = 500;
+
+    private final File dataDir;
+    private final ZooKeeperServer server;
+    private final ServerCnxnFactory cnxnFactory;
+
+    /**
+     * Constructor for EmbeddedZooKeeper. Starts the server with a temporary data directory.
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public EmbeddedZooKeeper() throws IOException, InterruptedException {
+        dataDir = Files.createTempDirectory("zk-test").toFile();
+        server = new ZooKeeperServer(dataDir, dataDir, TICK_TIME);
+        cnxnFactory = ServerCnxnFactory.createFactory(new InetSocketAddress("127.0.0.1", 0), 0);
+        cnxnFactory.startup(server);
+    }
+
+    /**
+     * Method for obtaining the connect string of the server.
+     *
+     * @return the host and port of the server.
+     */
+    public String getConnectString() {
+        return "127.0.0.1:" + cnxnFactory.getLocalPort();
+    }
+
+    /**
+     * Method for opening a new client session to the server.
+     *
+     * @return a connected ZooKeeper handle counting its reads.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public CountingZooKeeper connect() throws IOException, InterruptedException {
+        CountDownLatch connected = new CountDownLatch(1);
+        CountingZooKeeper zooKeeper = new CountingZooKeeper(getConnectString(), 10_000, watchedEvent -> {
+            if (watchedEvent.getState() == KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        });
+        connected.await();
+        return zooKeeper;
+    }
+
+    /**
+     * Method for obtaining the number of requests the server received from all clients so far.
+     *
+     * @return the number of packets received by the server.
+     */
+    public long getPacketsReceived() {
+        return server.serverStats().getPacketsReceived();
+    }
+
+    /**
+     * Method for closing the connections of all clients without ending their sessions, so the clients reconnect.
+     */
+    public void dropConnections() {
+        cnxnFactory.closeAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cnxnFactory.shutdown();
+        try (Stream<Path> paths = Files.walk(dataDir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
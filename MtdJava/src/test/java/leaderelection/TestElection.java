@@ -0,0 +1,121 @@
+package leaderelection;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.ZooDefs;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestElection {
+    private static final int NUM_CANDIDATES = 3;
+    private static final int NUM_ROUNDS = 5;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+    private final List<CountingZooKeeper> zooKeepers = new ArrayList<>();
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            zooKeepers.add(embeddedZooKeeper.connect());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (CountingZooKeeper zooKeeper : zooKeepers) {
+            zooKeeper.close();
+        }
+        embeddedZooKeeper.close();
+    }
+
+    // Hostnames contain the delimiters that were used to embed the load in old-style znode names.
+    @Test
+    void testOneWinnerPerRound() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_CANDIDATES);
+        List<Future<boolean[]>> results = new ArrayList<>();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            int candidate = i;
+            results.add(executor.submit(() -> {
+                boolean[] wins = new boolean[NUM_ROUNDS];
+                for (int round = 0; round < NUM_ROUNDS; round++) {
+                    wins[round] = new RandomElection(zooKeepers.get(candidate), NUM_CANDIDATES,
+                            "mtd_" + candidate + "#x").waitForResult();
+                }
+                return wins;
+            }));
+        }
+
+        int[] winnersPerRound = new int[NUM_ROUNDS];
+        for (Future<boolean[]> result : results) {
+            boolean[] wins = result.get(30, TimeUnit.SECONDS);
+            for (int round = 0; round < NUM_ROUNDS; round++) {
+                winnersPerRound[round] += wins[round] ? 1 : 0;
+            }
+        }
+        executor.shutdownNow();
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1}, winnersPerRound);
+    }
+
+    @Test
+    void testReadParticipantsAcceptsOldStyleRegistrations() throws Exception {
+        CountingZooKeeper zooKeeper = zooKeepers.get(0);
+        Election election = new HeuristicElection(zooKeeper, 2, 0.0, "new_host");
+        UUID oldIdentifier = UUID.randomUUID();
+        String oldStyleName = "old_host#" + oldIdentifier + "_0.75";
+        zooKeeper.create(Election.ELECTION_PATH + "/" + oldStyleName, "old_host".getBytes(StandardCharsets.UTF_8),
+                ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+        UUID newIdentifier = UUID.randomUUID();
+        String newName = "new_host#" + newIdentifier;
+        zooKeeper.create(Election.ELECTION_PATH + "/" + newName,
+                new RegistrationRecord(newIdentifier, "node", new double[]{0.25}, 0L).encode(),
+                ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+
+        Map<String, Participant> participants = election.readParticipants(Election.ELECTION_PATH,
+                List.of(oldStyleName, newName, "deleted#" + UUID.randomUUID()));
+
+        assertEquals(2, participants.size());
+        assertEquals(oldIdentifier, participants.get(oldStyleName).getIdentifier());
+        assertEquals(0.75, participants.get(oldStyleName).getOrderNumber(), 1e-9);
+        assertEquals(newIdentifier, participants.get(newName).getIdentifier());
+        assertEquals(0.25, participants.get(newName).getOrderNumber(), 1e-9);
+    }
+
+    // A newer candidate during a rolling upgrade, or a corrupt record, must not stop the election of the others.
+    @Test
+    void testReadParticipantsAcceptsUnknownAndTruncatedRecords() throws Exception {
+        CountingZooKeeper zooKeeper = zooKeepers.get(0);
+        Election election = new HeuristicElection(zooKeeper, 3, 0.0, "host");
+        UUID futureIdentifier = UUID.randomUUID();
+        String futureName = "future_host#" + futureIdentifier;
+        byte[] futureData = new RegistrationRecord(futureIdentifier, "node", new double[]{0.1}, 0L).encode();
+        futureData[1] = 2;
+        zooKeeper.create(Election.ELECTION_PATH + "/" + futureName, futureData,
+                ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+        UUID truncatedIdentifier = UUID.randomUUID();
+        String truncatedName = "truncated_host#" + truncatedIdentifier;
+        byte[] data = new RegistrationRecord(truncatedIdentifier, "node", new double[]{0.1}, 0L).encode();
+        zooKeeper.create(Election.ELECTION_PATH + "/" + truncatedName, Arrays.copyOf(data, data.length - 3),
+                ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+
+        Map<String, Participant> participants = election.readParticipants(Election.ELECTION_PATH,
+                List.of(futureName, truncatedName));
+
+        assertEquals(2, participants.size());
+        assertEquals(futureIdentifier, participants.get(futureName).getIdentifier());
+        assertEquals(truncatedIdentifier, participants.get(truncatedName).getIdentifier());
+        assertEquals(participants.get(futureName).getOrderNumber(), participants.get(truncatedName).getOrderNumber(),
+                1e-9); //both have the neutral load
+    }
+}
@@ -0,0 +1,42 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark comparing the candidates' heuristic elections, the barrier-based RandomElection and the
+ * SequentialElection for growing ensembles of in-process candidates. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class TestElectionBenchmark {
+    private static final int[] ENSEMBLE_SIZES = {3, 10, 50, 200};
+    private static final int NUM_ELECTIONS = 10;
+
+    @Test
+    void benchmarkBarrierVersusSequentialElection() throws Exception {
+        System.out.println("election, candidates, elections/s, p50 ms, p99 ms, zk requests/election");
+        for (int ensembleSize : ENSEMBLE_SIZES) {
+            runBenchmark("heuristic", ensembleSize, (zooKeeper, n, candidateIdentity) -> {
+                Candidate candidate = new Candidate(zooKeeper, n, candidateIdentity);
+                return () -> candidate.runElection(0.0);
+            });
+            runBenchmark("barrier", ensembleSize, (zooKeeper, n, candidateIdentity) ->
+                    () -> new RandomElection(zooKeeper, n, candidateIdentity).waitForResult());
+            runBenchmark("sequential", ensembleSize, (zooKeeper, n, candidateIdentity) ->
+                    () -> new SequentialElection(zooKeeper, n, 1.0, candidateIdentity).waitForResult());
+        }
+    }
+
+    /**
+     * Runs NUM_ELECTIONS elections with the given number of candidates reporting random loads, and prints the
+     * throughput, the round latencies and the ZooKeeper requests per election.
+     */
+    private void runBenchmark(String name, int ensembleSize, ElectionTestBench.ContenderFactory contenderFactory) throws Exception {
+        try (ElectionTestBench testBench = new ElectionTestBench(ensembleSize,
+                i -> () -> ThreadLocalRandom.current().nextDouble())) {
+            ElectionTestBench.Result result = testBench.run(NUM_ELECTIONS, contenderFactory);
+            System.out.printf("%s, %d, %s%n", name, ensembleSize, result);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestElectionMetrics {
+    private static final int NUM_CANDIDATES = 3;
+    private static final int NUM_ROUNDS = 4;
+
+    @Test
+    void testPhasesAreRecordedForEveryElection() throws Exception {
+        ElectionMetrics metrics = new ElectionMetrics();
+        try (EmbeddedZooKeeper embeddedZooKeeper = new EmbeddedZooKeeper()) {
+            ExecutorService executor = Executors.newFixedThreadPool(NUM_CANDIDATES);
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < NUM_CANDIDATES; i++) {
+                CountingZooKeeper zooKeeper = embeddedZooKeeper.connect();
+                CandidateIdentity candidateIdentity = new CandidateIdentity("candidate-" + i, "node", () -> 0.5);
+                results.add(executor.submit(() -> {
+                    for (int round = 0; round < NUM_ROUNDS; round++) {
+                        Election election = new HeuristicElection(zooKeeper, NUM_CANDIDATES, 0.5, candidateIdentity);
+                        election.setMetrics(metrics);
+                        election.waitForResult();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdownNow();
+        }
+
+        int elections = NUM_CANDIDATES * NUM_ROUNDS;
+        for (ElectionMetrics.Phase phase : List.of(ElectionMetrics.Phase.BARRIER_1, ElectionMetrics.Phase.MEASURE_LOAD,
+                ElectionMetrics.Phase.LEAVE_BARRIER_2_AND_REGISTER, ElectionMetrics.Phase.WAIT_FOR_REGISTRATIONS,
+                ElectionMetrics.Phase.DECIDE, ElectionMetrics.Phase.BARRIER_2, ElectionMetrics.Phase.UNREGISTER,
+                ElectionMetrics.Phase.TOTAL)) {
+            assertEquals(elections, metrics.getHistogram(phase).getCount(), phase.toString());
+        }
+        assertEquals(0, metrics.getHistogram(ElectionMetrics.Phase.ENQUEUE).getCount());
+        assertEquals(0, metrics.getCount(ElectionMetrics.Counter.TIMEOUT));
+        //there is no barrier 2 znode to leave in the first election of each candidate
+        assertTrue(metrics.getCount(ElectionMetrics.Counter.NO_NODE) >= NUM_CANDIDATES);
+        assertTrue(metrics.getHistogram(ElectionMetrics.Phase.TOTAL).getPercentileMillis(0.5)
+                >= metrics.getHistogram(ElectionMetrics.Phase.DECIDE).getPercentileMillis(0.5));
+    }
+
+    @Test
+    void testExport() {
+        ElectionMetrics metrics = new ElectionMetrics();
+        metrics.recordPhase(ElectionMetrics.Phase.BARRIER_1, System.nanoTime() - 2_000_000);
+        metrics.increment(ElectionMetrics.Counter.TIMEOUT);
+
+        List<String> lines = metrics.export("mtd-0");
+
+        assertEquals(1 + ElectionMetrics.Counter.values().length, lines.size());
+        assertTrue(lines.get(0).startsWith("EXP-PHASE, "));
+        assertTrue(lines.get(0).contains(", mtd-0, BARRIER_1, 1, "));
+        assertTrue(lines.stream().anyMatch(line -> line.endsWith(", mtd-0, TIMEOUT, 1")));
+    }
+}
@@ -0,0 +1,38 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestElectionTestBench {
+    private static final int NUM_CANDIDATES = 6;
+    private static final int NUM_ROUNDS = 5;
+
+    // With randomWeight 0.0 the candidate on the least loaded node must win every round.
+    @Test
+    void testHeuristicElectionElectsLeastLoadedCandidate() throws Exception {
+        try (ElectionTestBench testBench = new ElectionTestBench(NUM_CANDIDATES, i -> () -> 0.9 - i * 0.1)) {
+            ElectionTestBench.Result result = testBench.run(NUM_ROUNDS, (zooKeeper, n, candidateIdentity) -> {
+                Candidate candidate = new Candidate(zooKeeper, n, candidateIdentity);
+                return () -> candidate.runElection(0.0);
+            });
+
+            assertEquals(Collections.nCopies(NUM_ROUNDS, "candidate-" + (NUM_CANDIDATES - 1)), result.getLeaders());
+            assertTrue(result.getRoundsPerSecond() > 0);
+            assertTrue(result.getLatencyPercentile(0.99) >= result.getLatencyPercentile(0.5));
+            assertTrue(result.getRequestsPerRound() >= NUM_CANDIDATES);
+        }
+    }
+
+    @Test
+    void testRandomElectionElectsOneLeaderPerRound() throws Exception {
+        try (ElectionTestBench testBench = new ElectionTestBench(NUM_CANDIDATES, i -> () -> 0.5)) {
+            ElectionTestBench.Result result = testBench.run(NUM_ROUNDS, (zooKeeper, n, candidateIdentity) ->
+                    () -> new RandomElection(zooKeeper, n, candidateIdentity).waitForResult());
+
+            assertEquals(NUM_ROUNDS, result.getLeaders().size());
+        }
+    }
+}
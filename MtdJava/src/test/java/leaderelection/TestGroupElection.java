@@ -0,0 +1,104 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGroupElection {
+    private static final int NUM_CANDIDATES = 3;
+    private static final double[] LOADS = {0.1, 0.2, 0.5};
+    private static final double GROUP_LOAD_PENALTY = 0.25;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+    private final List<CountingZooKeeper> zooKeepers = new ArrayList<>();
+    private final List<Candidate> candidates = new ArrayList<>();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            CountingZooKeeper zooKeeper = embeddedZooKeeper.connect();
+            double load = LOADS[i];
+            Candidate candidate = new Candidate(zooKeeper, NUM_CANDIDATES,
+                    new CandidateIdentity("candidate-" + i, "node-" + i, () -> load));
+            candidate.setGroupLoadPenalty(GROUP_LOAD_PENALTY);
+            zooKeepers.add(zooKeeper);
+            candidates.add(candidate);
+        }
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        for (CountingZooKeeper zooKeeper : zooKeepers) {
+            zooKeeper.close();
+        }
+        embeddedZooKeeper.close();
+    }
+
+    /**
+     * Runs one election of the given group with all candidates and returns the index of the winner.
+     */
+    private int electLeader(String group) throws Exception {
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            Callable<Boolean> election = () -> candidate.runElection(0.0, group);
+            results.add(executor.submit(election));
+        }
+        int winner = -1;
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            if (results.get(i).get(30, TimeUnit.SECONDS)) {
+                assertEquals(-1, winner, "more than one leader in group " + group);
+                winner = i;
+            }
+        }
+        return winner;
+    }
+
+    @Test
+    void testGroupsElectIndependently() throws Exception {
+        Future<Integer> leaderA = executor.submit(() -> electLeader("a"));
+        Future<Integer> leaderB = executor.submit(() -> electLeader("b"));
+
+        assertEquals(0, leaderA.get(30, TimeUnit.SECONDS));
+        assertEquals(0, leaderB.get(30, TimeUnit.SECONDS));
+        assertEquals(NUM_CANDIDATES, zooKeepers.get(0).getChildren("/groups/a/barrier2", false).size());
+        assertEquals(NUM_CANDIDATES, zooKeepers.get(0).getChildren("/groups/b/barrier2", false).size());
+        assertNull(zooKeepers.get(0).exists("/election", false));
+    }
+
+    @Test
+    void testLeadingAGroupPenalizesTheLoad() throws Exception {
+        int leaderA = electLeader("a");
+        assertEquals(0, leaderA);
+
+        int[] leaderB = new int[1];
+        candidates.get(leaderA).leadGroup(() -> {
+            try {
+                leaderB[0] = electLeader("b");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertEquals(1, leaderB[0]); //0.1 + 0.25 is more than 0.2
+
+        assertEquals(0, electLeader("b")); //the penalty ends with the leadership
+    }
+
+    @Test
+    void testInvalidGroupName() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RandomElection(zooKeepers.get(0), NUM_CANDIDATES,
+                        new CandidateIdentity("candidate-0", "node-0", () -> 0.5), "a/b"));
+    }
+}
@@ -0,0 +1,44 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLatencyHistogram {
+    private static final double BUCKET_ACCURACY = 0.2;
+
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentileMillis(0.99));
+        assertEquals(0.0, histogram.getMeanMillis());
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMillis(), 1e-9);
+        assertEquals(100.0, histogram.getMaxMillis(), 1e-9);
+        assertEquals(50.0, histogram.getPercentileMillis(0.5), 50.0 * BUCKET_ACCURACY);
+        assertEquals(99.0, histogram.getPercentileMillis(0.99), 99.0 * BUCKET_ACCURACY);
+        assertTrue(histogram.getPercentileMillis(0.5) >= 50.0);
+        assertTrue(histogram.getPercentileMillis(1.0) <= histogram.getMaxMillis());
+    }
+
+    @Test
+    void testExtremeLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(2, histogram.getCount());
+        assertTrue(histogram.getPercentileMillis(0.5) <= 0.001);
+        assertEquals(histogram.getMaxMillis(), histogram.getPercentileMillis(1.0));
+    }
+}
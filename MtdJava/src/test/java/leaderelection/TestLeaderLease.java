@@ -0,0 +1,137 @@
+package leaderelection;
+
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLeaderLease {
+    private EmbeddedZooKeeper embeddedZooKeeper;
+    private CountingZooKeeper leaderZooKeeper;
+    private CountingZooKeeper followerZooKeeper;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        leaderZooKeeper = embeddedZooKeeper.connect();
+        followerZooKeeper = embeddedZooKeeper.connect();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        leaderZooKeeper.close();
+        followerZooKeeper.close();
+        embeddedZooKeeper.close();
+    }
+
+    @Test
+    void testTermExpiresAfterMoves() throws Exception {
+        LeaderLease lease = new LeaderLease(leaderZooKeeper, "leader", 3, 0);
+        lease.acquire();
+        for (int i = 0; i < 3; i++) {
+            assertFalse(lease.isExpired());
+            lease.recordMove();
+        }
+        assertTrue(lease.isExpired());
+        lease.release();
+    }
+
+    @Test
+    void testTermExpiresAfterTime() throws Exception {
+        LeaderLease lease = new LeaderLease(leaderZooKeeper, "leader", 0, 200);
+        lease.acquire();
+        assertFalse(lease.isExpired());
+        Thread.sleep(250);
+        assertTrue(lease.isExpired());
+        lease.release();
+    }
+
+    @Test
+    void testFollowerWaitsForRelease() throws Exception {
+        LeaderLease lease = new LeaderLease(leaderZooKeeper, "leader", 1, 0);
+        lease.acquire();
+
+        Future<?> follower = executor.submit(() -> {
+            LeaderLease.awaitRelease(followerZooKeeper);
+            return null;
+        });
+        assertThrows(TimeoutException.class, () -> follower.get(300, TimeUnit.MILLISECONDS));
+
+        lease.release();
+        follower.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testLeaseIsReleasedWhenLeaderSessionEnds() throws Exception {
+        new LeaderLease(leaderZooKeeper, "leader", 1, 0).acquire();
+
+        Future<?> follower = executor.submit(() -> {
+            LeaderLease.awaitRelease(followerZooKeeper);
+            return null;
+        });
+        leaderZooKeeper.close();
+        follower.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testHolderNoticesLostLease() throws Exception {
+        LeaderLease lease = new LeaderLease(leaderZooKeeper, "leader", 10, 0);
+        lease.acquire();
+        assertFalse(lease.isLost());
+
+        followerZooKeeper.delete("/lease", -1);
+        LeaderLease followerLease = new LeaderLease(followerZooKeeper, "follower", 10, 0);
+        followerLease.acquire();
+        awaitLost(lease);
+        assertTrue(lease.isExpired());
+
+        lease.release(); //must not delete the lease of the follower
+        assertNotNull(followerZooKeeper.exists("/lease", false));
+        assertFalse(followerLease.isLost());
+        followerLease.release();
+        assertNull(followerZooKeeper.exists("/lease", false));
+    }
+
+    @Test
+    void testHolderNoticesExpiredSession() throws Exception {
+        LeaderLease lease = new LeaderLease(leaderZooKeeper, "leader", 10, 0);
+        lease.acquire();
+
+        expireSession(leaderZooKeeper);
+        awaitLost(lease);
+        assertTrue(lease.isExpired());
+    }
+
+    private static void awaitLost(LeaderLease lease) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!lease.isLost() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(lease.isLost());
+    }
+
+    /**
+     * Expires a session by connecting to it with a second client and closing that client.
+     */
+    private void expireSession(ZooKeeper zooKeeper) throws Exception {
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper clone = new ZooKeeper(embeddedZooKeeper.getConnectString(), 4000, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        }, zooKeeper.getSessionId(), zooKeeper.getSessionPasswd());
+        assertTrue(connected.await(4000, TimeUnit.MILLISECONDS));
+        clone.close();
+    }
+}
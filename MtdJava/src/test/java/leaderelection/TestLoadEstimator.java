@@ -0,0 +1,76 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLoadEstimator {
+    private static final LoadProvider NO_SOURCE = () -> HeuristicElection.NULL_CPU_LOAD;
+
+    @Test
+    void testSmoothedLoad() {
+        LoadEstimator estimator = new LoadEstimator(NO_SOURCE, 4, 0.5);
+        assertTrue(Double.isNaN(estimator.getSmoothedLoad()));
+
+        estimator.record(0.2);
+        estimator.record(0.6);
+        estimator.record(0.0);
+
+        assertEquals(0.2, estimator.getSmoothedLoad(), 1e-9);
+        assertEquals(0.2, estimator.getRelativeCpuLoad(), 1e-9);
+    }
+
+    @Test
+    void testPercentilesOfWindow() {
+        LoadEstimator estimator = new LoadEstimator(NO_SOURCE, 4, 1.0);
+        for (double load : new double[]{0.9, 0.8, 0.1, 0.2, 0.3, 0.4}) {
+            estimator.record(load); //0.9 and 0.8 are pushed out of the window
+        }
+
+        assertEquals(0.1, estimator.getPercentile(0.0), 1e-9);
+        assertEquals(0.2, estimator.getPercentile(0.5), 1e-9);
+        assertEquals(0.4, estimator.getPercentile(1.0), 1e-9);
+        assertEquals(0.4, estimator.getSmoothedLoad(), 1e-9); //no smoothing
+    }
+
+    @Test
+    void testSpikeDoesNotSwingRanking() {
+        LoadEstimator spiking = new LoadEstimator(NO_SOURCE, 10, 0.3);
+        LoadEstimator steady = new LoadEstimator(NO_SOURCE, 10, 0.3);
+        for (int i = 0; i < 10; i++) {
+            spiking.record(0.3);
+            steady.record(0.5);
+        }
+        spiking.record(0.8); //short spike right before the registration
+
+        Participant spikingParticipant = new Participant("spiking", UUID.randomUUID(), spiking.getRelativeCpuLoad(), 0.0);
+        Participant steadyParticipant = new Participant("steady", UUID.randomUUID(), steady.getRelativeCpuLoad(), 0.0);
+        assertTrue(spikingParticipant.compareTo(steadyParticipant) < 0);
+    }
+
+    @Test
+    void testSamplesSourceInBackground() throws Exception {
+        AtomicInteger readings = new AtomicInteger();
+        try (LoadEstimator estimator = new LoadEstimator(() -> readings.incrementAndGet() % 2 == 0 ? 0.4 : -1.0, 5, 1.0)
+                .start(10)) {
+            Thread.sleep(200);
+            assertTrue(readings.get() > 5);
+            assertEquals(0.4, estimator.getRelativeCpuLoad(), 1e-9); //failed readings are skipped
+        }
+    }
+
+    @Test
+    void testNullLoadWithoutSamples() {
+        assertEquals(HeuristicElection.NULL_CPU_LOAD, new LoadEstimator(NO_SOURCE, 5, 0.3).getRelativeCpuLoad());
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new LoadEstimator(NO_SOURCE, 0, 0.3));
+        assertThrows(IllegalArgumentException.class, () -> new LoadEstimator(NO_SOURCE, 5, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new LoadEstimator(NO_SOURCE, 5, 1.5));
+    }
+}
@@ -0,0 +1,121 @@
+package leaderelection;
+
+import org.apache.zookeeper.ZooKeeper;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMembership {
+    private static final int ENSEMBLE_SIZE = 3;
+    private static final int QUORUM = 2;
+    private static final long TIMEOUT_MILLISECONDS = 10_000;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+    private ExecutorService executor;
+    private final List<ZooKeeper> zooKeepers = new ArrayList<>();
+    private final List<String> leaders = new ArrayList<>();
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        for (ZooKeeper zooKeeper : zooKeepers) {
+            zooKeeper.close();
+        }
+        embeddedZooKeeper.close();
+    }
+
+    /**
+     * Starts a candidate that runs elections until the test ends and records its wins.
+     */
+    private ZooKeeper startCandidate(int index, int quorum) throws Exception {
+        ZooKeeper zooKeeper = embeddedZooKeeper.connect();
+        zooKeepers.add(zooKeeper);
+        double load = 0.1 * (index + 1); //the candidate with the lowest index wins every election it takes part in
+        Candidate candidate = new Candidate(zooKeeper, ENSEMBLE_SIZE,
+                new CandidateIdentity("candidate-" + index, "node-" + index, () -> load));
+        candidate.setElectionQuorum(quorum);
+        executor.submit(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (candidate.runElection(0.0)) {
+                    synchronized (leaders) {
+                        leaders.add("candidate-" + index);
+                        leaders.notifyAll();
+                    }
+                }
+            }
+            return null;
+        });
+        return zooKeeper;
+    }
+
+    /**
+     * Waits until the given candidate was elected after the given number of elections.
+     */
+    private boolean awaitLeader(String hostName, int afterElections, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (leaders) {
+            while (!leaders.subList(afterElections, leaders.size()).contains(hostName)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                leaders.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private int getElections() {
+        synchronized (leaders) {
+            return leaders.size();
+        }
+    }
+
+    @Test
+    void testElectionsContinueAfterCandidateCrashed() throws Exception {
+        ZooKeeper crashing = startCandidate(0, QUORUM);
+        startCandidate(1, QUORUM);
+        startCandidate(2, QUORUM);
+        assertTrue(awaitLeader("candidate-0", 0, TIMEOUT_MILLISECONDS));
+
+        crashing.close(); //the ephemeral znodes of the candidate vanish, as after its session timeout
+        int electionsBeforeCrash = getElections();
+        long crashTime = System.currentTimeMillis();
+        assertTrue(awaitLeader("candidate-1", electionsBeforeCrash, TIMEOUT_MILLISECONDS));
+        //far below the 30 s timeout of the registrations and barrier 2
+        assertTrue(System.currentTimeMillis() - crashTime < TIMEOUT_MILLISECONDS);
+    }
+
+    @Test
+    void testCandidateJoinsRunningEnsemble() throws Exception {
+        startCandidate(1, QUORUM);
+        startCandidate(2, QUORUM);
+        assertTrue(awaitLeader("candidate-1", 0, TIMEOUT_MILLISECONDS));
+
+        int electionsBeforeJoin = getElections();
+        startCandidate(0, QUORUM);
+        assertTrue(awaitLeader("candidate-0", electionsBeforeJoin, TIMEOUT_MILLISECONDS));
+    }
+
+    @Test
+    void testNoElectionWithoutQuorum() throws Exception {
+        startCandidate(0, ENSEMBLE_SIZE);
+        startCandidate(1, ENSEMBLE_SIZE);
+
+        Thread.sleep(1000);
+        assertEquals(0, getElections());
+    }
+}
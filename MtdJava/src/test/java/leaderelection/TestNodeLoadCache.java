@@ -0,0 +1,75 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNodeLoadCache {
+    private static final long REFRESH_MILLIS = 50;
+    private static final double ALLOCATABLE_CPU = 4.0;
+
+    private final AtomicInteger usageFetches = new AtomicInteger();
+    private final AtomicInteger allocatableFetches = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private NodeLoadCache createCache() {
+        return new NodeLoadCache("node", REFRESH_MILLIS, () -> {
+            if (failing.get()) {
+                throw new IllegalStateException("metrics server not reachable");
+            }
+            return usageFetches.incrementAndGet();
+        }, () -> {
+            allocatableFetches.incrementAndGet();
+            return ALLOCATABLE_CPU;
+        });
+    }
+
+    @Test
+    void testLoadIsReadFromMemory() {
+        try (NodeLoadCache cache = createCache()) {
+            assertEquals(1 / ALLOCATABLE_CPU, cache.getRelativeCpuLoad(), 1e-9); //first read fetches once
+            for (int i = 0; i < 100; i++) {
+                assertEquals(1 / ALLOCATABLE_CPU, cache.getRelativeCpuLoad(), 1e-9);
+            }
+            assertEquals(1, usageFetches.get());
+            assertEquals(1, allocatableFetches.get());
+        }
+    }
+
+    @Test
+    void testBackgroundRefresh() throws Exception {
+        try (NodeLoadCache cache = createCache().start()) {
+            Thread.sleep(25 * REFRESH_MILLIS);
+            assertTrue(cache.getRelativeCpuLoad() > 10 / ALLOCATABLE_CPU);
+            assertTrue(usageFetches.get() > 10);
+            assertTrue(allocatableFetches.get() < usageFetches.get() / 10 + 2); //allocatable CPU is refreshed rarely
+            assertFalse(cache.isStale());
+        }
+    }
+
+    @Test
+    void testFailedRefreshesKeepLastLoadAndReportStaleness() throws Exception {
+        try (NodeLoadCache cache = createCache().start()) {
+            Thread.sleep(2 * REFRESH_MILLIS);
+            failing.set(true);
+            double lastLoad = cache.getRelativeCpuLoad();
+            Thread.sleep(5 * REFRESH_MILLIS);
+
+            assertEquals(lastLoad, cache.getRelativeCpuLoad(), 1e-9);
+            assertTrue(cache.isStale());
+            assertTrue(cache.getStalenessMillis() >= 3 * REFRESH_MILLIS);
+        }
+    }
+
+    @Test
+    void testNoLoadBeforeFirstSuccessfulRefresh() {
+        failing.set(true);
+        try (NodeLoadCache cache = createCache()) {
+            assertEquals(HeuristicElection.NULL_CPU_LOAD, cache.getRelativeCpuLoad());
+            assertEquals(Long.MAX_VALUE, cache.getStalenessMillis());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPipelinedElection {
+    private static final int NUM_CANDIDATES = 3;
+    private static final int NUM_ROUNDS = 8;
+    private static final long MOVE_MILLIS = 100;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        embeddedZooKeeper.close();
+    }
+
+    @Test
+    void testMovesDoNotOverlapAndElectionsRunDuringMoves() throws Exception {
+        List<long[]> moves = Collections.synchronizedList(new ArrayList<>());
+        List<Long> electionStarts = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger movesInProgress = new AtomicInteger();
+        AtomicInteger maxMovesInProgress = new AtomicInteger();
+        Runnable move = () -> {
+            long start = System.nanoTime();
+            maxMovesInProgress.accumulateAndGet(movesInProgress.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(MOVE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            movesInProgress.decrementAndGet();
+            moves.add(new long[]{start, System.nanoTime()});
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_CANDIDATES);
+        List<Future<?>> results = new ArrayList<>();
+        AtomicInteger elected = new AtomicInteger();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            Candidate candidate = new Candidate(embeddedZooKeeper.connect(), NUM_CANDIDATES,
+                    new CandidateIdentity("candidate-" + i, "node-" + i, () -> 0.5));
+            results.add(executor.submit(() -> {
+                for (int round = 0; round < NUM_ROUNDS; round++) {
+                    electionStarts.add(System.nanoTime());
+                    if (candidate.runPipelinedElection(1.0, move)) {
+                        elected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (moves.size() < NUM_ROUNDS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(NUM_ROUNDS, elected.get());
+        assertEquals(NUM_ROUNDS, moves.size());
+        assertEquals(1, maxMovesInProgress.get());
+        boolean electionDuringMove = false;
+        for (long[] interval : moves) {
+            for (long electionStart : electionStarts) {
+                electionDuringMove |= electionStart > interval[0] && electionStart < interval[1];
+            }
+        }
+        assertTrue(electionDuringMove);
+    }
+
+    @Test
+    void testReservationGivenUpWithoutMove() throws Exception {
+        CountingZooKeeper zooKeeper = embeddedZooKeeper.connect();
+        MoveToken moveToken = new MoveToken(zooKeeper, "candidate-0");
+        assertNotNull(zooKeeper.exists("/nextmove", false));
+
+        moveToken.release();
+
+        assertNull(zooKeeper.exists("/nextmove", false));
+        MoveToken.awaitReservationTaken(zooKeeper); //returns right away
+        zooKeeper.close();
+    }
+
+    // The losers of an election can finish the next one without its winner, whose reservation may still be pending.
+    @Test
+    void testMajorityQuorumWaitsForPendingReservation() throws Exception {
+        List<long[]> moves = Collections.synchronizedList(new ArrayList<>());
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger movesInProgress = new AtomicInteger();
+        AtomicInteger maxMovesInProgress = new AtomicInteger();
+        Runnable move = () -> {
+            long start = System.nanoTime();
+            maxMovesInProgress.accumulateAndGet(movesInProgress.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(MOVE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            movesInProgress.decrementAndGet();
+            moves.add(new long[]{start, System.nanoTime()});
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_CANDIDATES);
+        List<CountingZooKeeper> zooKeepers = new ArrayList<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            CountingZooKeeper zooKeeper = embeddedZooKeeper.connect();
+            zooKeepers.add(zooKeeper);
+            Candidate candidate = new Candidate(zooKeeper, NUM_CANDIDATES,
+                    new CandidateIdentity("candidate-" + i, "node-" + i, () -> 0.5));
+            candidate.setElectionQuorum(Candidate.getMajority(NUM_CANDIDATES));
+            executor.submit(() -> {
+                while (!stopped.get()) {
+                    try {
+                        candidate.runPipelinedElection(1.0, move);
+                    } catch (Exception e) {
+                        if (!stopped.get()) {
+                            errors.add(e);
+                        }
+                        return;
+                    }
+                }
+            });
+        }
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (moves.size() < NUM_ROUNDS && errors.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        stopped.set(true);
+        executor.shutdownNow();
+        for (CountingZooKeeper zooKeeper : zooKeepers) {
+            zooKeeper.close();
+        }
+
+        assertEquals(List.of(), errors);
+        assertTrue(moves.size() >= NUM_ROUNDS);
+        assertEquals(1, maxMovesInProgress.get());
+    }
+
+    @Test
+    void testReservationWaitsForPendingReservation() throws Exception {
+        CountingZooKeeper previousZooKeeper = embeddedZooKeeper.connect();
+        CountingZooKeeper pendingZooKeeper = embeddedZooKeeper.connect();
+        CountingZooKeeper nextZooKeeper = embeddedZooKeeper.connect();
+        MoveToken previous = new MoveToken(previousZooKeeper, "candidate-0");
+        previous.acquire();
+        MoveToken pending = new MoveToken(pendingZooKeeper, "candidate-1");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<MoveToken> next = executor.submit(() -> new MoveToken(nextZooKeeper, "candidate-2"));
+        Thread.sleep(200);
+        assertFalse(next.isDone()); //the pending reservation is not overwritten or failed on
+
+        Future<?> pendingMove = executor.submit(() -> {
+            pending.acquire();
+            return null;
+        });
+        previous.release();
+        pendingMove.get(5, TimeUnit.SECONDS);
+        assertNotNull(next.get(5, TimeUnit.SECONDS));
+        assertEquals("candidate-2", new String(nextZooKeeper.getData("/nextmove", false, null)));
+        executor.shutdownNow();
+        previousZooKeeper.close();
+        pendingZooKeeper.close();
+        nextZooKeeper.close();
+    }
+}
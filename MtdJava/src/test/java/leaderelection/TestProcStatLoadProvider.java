@@ -0,0 +1,67 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestProcStatLoadProvider {
+    @TempDir
+    Path procRoot;
+
+    /**
+     * Writes a /proc/stat file with the given CPU times, in the order user, nice, system, idle and iowait.
+     */
+    private void writeStat(long user, long nice, long system, long idle, long iowait) throws Exception {
+        Files.writeString(procRoot.resolve("stat"), String.format(
+                "cpu  %d %d %d %d %d 0 0 0 0 0%ncpu0 %d %d %d %d %d 0 0 0 0 0%n",
+                user, nice, system, idle, iowait, user, nice, system, idle, iowait));
+    }
+
+    @Test
+    void testLoadIsShareOfBusyTimeBetweenSamples() throws Exception {
+        try (ProcStatLoadProvider provider = new ProcStatLoadProvider(procRoot, 1000)) {
+            writeStat(100, 0, 100, 1000, 0);
+            provider.sample();
+            writeStat(160, 0, 115, 1100, 25); //75 busy, 125 idle or waiting
+            provider.sample();
+
+            assertEquals(0.375, provider.getRelativeCpuLoad(), 1e-9);
+        }
+    }
+
+    @Test
+    void testLoadAverageBeforeSecondSample() throws Exception {
+        double loadAverage = 0.5 * Runtime.getRuntime().availableProcessors();
+        Files.writeString(procRoot.resolve("loadavg"), loadAverage + " 0.20 0.10 1/100 1234\n");
+        try (ProcStatLoadProvider provider = new ProcStatLoadProvider(procRoot, 1000)) {
+            writeStat(100, 0, 100, 1000, 0);
+            provider.sample();
+
+            assertEquals(0.5, provider.getRelativeCpuLoad(), 1e-9);
+        }
+    }
+
+    @Test
+    void testNullLoadWithoutProcFiles() {
+        try (ProcStatLoadProvider provider = new ProcStatLoadProvider(procRoot, 1000)) {
+            provider.sample();
+
+            assertEquals(HeuristicElection.NULL_CPU_LOAD, provider.getRelativeCpuLoad());
+        }
+    }
+
+    @Test
+    void testBackgroundSamplingOfThisMachine() throws Exception {
+        Assumptions.assumeTrue(Files.isReadable(Path.of("/proc/stat")));
+        try (ProcStatLoadProvider provider = new ProcStatLoadProvider().start()) {
+            Thread.sleep(2 * ProcStatLoadProvider.DEFAULT_SAMPLE_MILLIS);
+            double load = provider.getRelativeCpuLoad();
+
+            assertTrue(load >= 0.0 && load <= 1.0);
+        }
+    }
+}
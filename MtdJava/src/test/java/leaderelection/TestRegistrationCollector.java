@@ -0,0 +1,107 @@
+package leaderelection;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.ZooDefs;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRegistrationCollector {
+    private static final String ELECTION_PATH = "/election";
+    private static final int QUORUM = 5;
+    private static final long REGISTRATION_INTERVAL_MILLIS = 100;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+    private CountingZooKeeper collectorZooKeeper;
+    private CountingZooKeeper registrarZooKeeper;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        collectorZooKeeper = embeddedZooKeeper.connect();
+        registrarZooKeeper = embeddedZooKeeper.connect();
+        registrarZooKeeper.create(ELECTION_PATH, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        collectorZooKeeper.close();
+        registrarZooKeeper.close();
+        embeddedZooKeeper.close();
+    }
+
+    /**
+     * Registers the candidates one by one with a delay, as candidates arriving at the election would.
+     */
+    private void registerCandidatesSlowly(int numCandidates) throws Exception {
+        for (int i = 0; i < numCandidates; i++) {
+            Thread.sleep(REGISTRATION_INTERVAL_MILLIS);
+            registrarZooKeeper.create(ELECTION_PATH + "/candidate" + i, null,
+                    ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+        }
+    }
+
+    @Test
+    void testCollectReturnsRegistrationsOnceQuorumIsReached() throws Exception {
+        RegistrationCollector collector = new RegistrationCollector(collectorZooKeeper, ELECTION_PATH, QUORUM);
+        Future<List<String>> registrations = executor.submit(() -> collector.collect(10_000));
+
+        registerCandidatesSlowly(QUORUM);
+
+        assertEquals(QUORUM, registrations.get().size());
+    }
+
+    @Test
+    void testCollectTimesOutWithoutQuorum() throws Exception {
+        RegistrationCollector collector = new RegistrationCollector(collectorZooKeeper, ELECTION_PATH, QUORUM);
+        Future<List<String>> registrations = executor.submit(() -> collector.collect(500));
+
+        registerCandidatesSlowly(QUORUM - 2);
+
+        assertNull(registrations.get());
+    }
+
+    // Compares the reads of one round against the busy-spin loop that waitForRegistrations used before.
+    @Test
+    void testReadCountPerRound() throws Exception {
+        Future<?> registrar = executor.submit(() -> {
+            registerCandidatesSlowly(QUORUM);
+            return null;
+        });
+        while (collectorZooKeeper.getChildren(ELECTION_PATH, false).size() < QUORUM) {
+            //busy-spin, as in the previous implementation
+        }
+        registrar.get();
+        long busySpinReads = collectorZooKeeper.getReadCount();
+        registrarZooKeeper.getChildren(ELECTION_PATH, false).forEach(child -> {
+            try {
+                registrarZooKeeper.delete(ELECTION_PATH + "/" + child, -1);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        collectorZooKeeper.resetReadCount();
+        RegistrationCollector collector = new RegistrationCollector(collectorZooKeeper, ELECTION_PATH, QUORUM);
+        registrar = executor.submit(() -> {
+            registerCandidatesSlowly(QUORUM);
+            return null;
+        });
+        assertEquals(QUORUM, collector.collect(10_000).size());
+        registrar.get();
+        long watchedReads = collectorZooKeeper.getReadCount();
+
+        System.out.printf("Registration reads per round: busy-spin=%d, watched=%d%n", busySpinReads, watchedReads);
+        assertTrue(watchedReads <= QUORUM + 1);
+        assertEquals(watchedReads, collector.getReadCount());
+        assertTrue(busySpinReads > 10 * watchedReads);
+    }
+}
@@ -0,0 +1,60 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRegistrationRecord {
+
+    @Test
+    void testEncodeAndDecode() {
+        UUID identifier = UUID.randomUUID();
+        double[] loads = {0.25, 0.5, 12.0};
+        RegistrationRecord record = new RegistrationRecord(identifier, "worker_1#a", loads, 1234L);
+
+        RegistrationRecord decoded = RegistrationRecord.decode(record.encode());
+
+        assertNotNull(decoded);
+        assertEquals(identifier, decoded.getIdentifier());
+        assertEquals("worker_1#a", decoded.getNodeName());
+        assertArrayEquals(loads, decoded.getLoads());
+        assertEquals(0.25, decoded.getCpuLoad());
+        assertEquals(1234L, decoded.getTimestamp());
+    }
+
+    @Test
+    void testDecodeWithoutLoads() {
+        RegistrationRecord record = new RegistrationRecord(UUID.randomUUID(), null, new double[0], 0L);
+
+        RegistrationRecord decoded = RegistrationRecord.decode(record.encode());
+
+        assertEquals("", decoded.getNodeName());
+        assertEquals(HeuristicElection.HALF_CPU_LOAD, decoded.getCpuLoad());
+    }
+
+    @Test
+    void testDecodeOldStyleData() {
+        assertNull(RegistrationRecord.decode("mtd-0".getBytes(StandardCharsets.UTF_8)));
+        assertNull(RegistrationRecord.decode("a-rather-long-hostname-of-a-pod".getBytes(StandardCharsets.UTF_8)));
+        assertNull(RegistrationRecord.decode(null));
+    }
+
+    @Test
+    void testDecodeUnknownVersion() {
+        byte[] data = new RegistrationRecord(UUID.randomUUID(), "node", new double[]{0.1}, 0L).encode();
+        data[1] = 99;
+        assertNull(RegistrationRecord.decode(data));
+    }
+
+    @Test
+    void testDecodeTruncatedData() {
+        byte[] data = new RegistrationRecord(UUID.randomUUID(), "node", new double[]{0.1, 0.2}, 0L).encode();
+        for (int length = 0; length < data.length; length++) {
+            assertNull(RegistrationRecord.decode(Arrays.copyOf(data, length)), "truncated to " + length + " bytes");
+        }
+    }
+}
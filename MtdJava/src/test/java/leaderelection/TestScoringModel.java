@@ -0,0 +1,79 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestScoringModel {
+    @Test
+    void testCpuOnlyScoreIsCpuLoad() {
+        double[] scores = ScoringModel.CPU_ONLY.score(List.of(
+                new double[]{0.3, 0.9, 40, 500},
+                new double[]{0.7},
+                new double[0]));
+
+        assertArrayEquals(new double[]{0.3, 0.7, HeuristicElection.HALF_CPU_LOAD}, scores, 1e-9);
+    }
+
+    @Test
+    void testAbsoluteResourcesAreNormalizedByMaximum() {
+        ScoringModel scoringModel = ScoringModel.fromSettings(Map.of("cpu", 0.5, "pods", 0.25, "apiLatency", 0.25));
+        double[] scores = scoringModel.score(List.of(
+                new double[]{0.4, Double.NaN, 10, 50},
+                new double[]{0.2, Double.NaN, 40, 200}));
+
+        assertEquals(0.5 * 0.4 + 0.25 * 0.25 + 0.25 * 0.25, scores[0], 1e-9);
+        assertEquals(0.5 * 0.2 + 0.25 * 1.0 + 0.25 * 1.0, scores[1], 1e-9);
+    }
+
+    @Test
+    void testMissingLoadsDoNotAffectNormalizationOfOthers() {
+        ScoringModel scoringModel = ScoringModel.fromSettings(Map.of("pods", 1.0));
+        double[] scores = scoringModel.score(List.of(
+                new double[]{0.4, 0.5, 10, 50},
+                new double[]{0.2, 0.5, 40, 200},
+                new double[]{0.3, 0.5})); //reported by the /proc/stat load provider
+
+        assertEquals(0.25, scores[0], 1e-9);
+        assertEquals(1.0, scores[1], 1e-9);
+        assertEquals(HeuristicElection.HALF_CPU_LOAD, scores[2], 1e-9);
+    }
+
+    @Test
+    void testMemoryPressureOutweighsLowerCpuLoad() {
+        ScoringModel scoringModel = new ScoringModel(Map.of(
+                ScoringModel.Resource.CPU, 1.0, ScoringModel.Resource.MEMORY, 1.0));
+        double[] scores = scoringModel.score(List.of(new double[]{0.2, 0.95}, new double[]{0.3, 0.4}));
+
+        assertTrue(scores[1] < scores[0]);
+    }
+
+    @Test
+    void testScoresDoNotDependOnRegistrationOrder() {
+        ScoringModel scoringModel = ScoringModel.fromSettings(Map.of("cpu", 1.0, "pods", 1.0));
+        double[] first = {0.4, 0.0, 12};
+        double[] second = {0.6, 0.0, 3};
+        double[] scores = scoringModel.score(List.of(first, second));
+        double[] reversedScores = scoringModel.score(List.of(second, first));
+
+        assertEquals(scores[0], reversedScores[1]);
+        assertEquals(scores[1], reversedScores[0]);
+    }
+
+    @Test
+    void testFailedMeasurementsCountAsHalfLoaded() {
+        double[] scores = ScoringModel.CPU_ONLY.score(List.of(new double[]{HeuristicElection.NULL_CPU_LOAD}));
+
+        assertEquals(HeuristicElection.HALF_CPU_LOAD, scores[0], 1e-9);
+    }
+
+    @Test
+    void testInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> ScoringModel.fromSettings(Map.of("disk", 1.0)));
+        assertThrows(IllegalArgumentException.class, () -> ScoringModel.fromSettings(Map.of("cpu", -1.0)));
+        assertThrows(IllegalArgumentException.class, () -> ScoringModel.fromSettings(Map.of("cpu", 0.0)));
+    }
+}
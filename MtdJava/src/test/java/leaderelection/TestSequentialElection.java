@@ -0,0 +1,89 @@
+package leaderelection;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSequentialElection {
+    private static final int NUM_CANDIDATES = 5;
+    private static final int NUM_ELECTIONS = 20;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+    private final List<CountingZooKeeper> zooKeepers = new ArrayList<>();
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            zooKeepers.add(embeddedZooKeeper.connect());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (CountingZooKeeper zooKeeper : zooKeepers) {
+            zooKeeper.close();
+        }
+        embeddedZooKeeper.close();
+    }
+
+    @Test
+    void testOneLeaderAtATime() throws Exception {
+        AtomicInteger currentLeaders = new AtomicInteger();
+        AtomicInteger elections = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int[] wins = new int[NUM_CANDIDATES];
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_CANDIDATES);
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            int candidate = i;
+            executor.submit(() -> {
+                while (elections.get() < NUM_ELECTIONS) {
+                    SequentialElection election = new SequentialElection(zooKeepers.get(candidate), NUM_CANDIDATES,
+                            1.0, "candidate-" + candidate);
+                    if (election.waitForResult()) {
+                        if (currentLeaders.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        wins[candidate]++;
+                        Thread.sleep(10); //the move
+                        currentLeaders.decrementAndGet();
+                        elections.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (elections.get() < NUM_ELECTIONS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertTrue(elections.get() >= NUM_ELECTIONS);
+        assertEquals(0, overlaps.get());
+        int totalWins = 0;
+        for (int win : wins) {
+            totalWins += win;
+        }
+        assertEquals(elections.get(), totalWins);
+    }
+
+    @Test
+    void testCrashedWinnerDoesNotBlockElections() throws Exception {
+        CountingZooKeeper crashingZooKeeper = embeddedZooKeeper.connect();
+        new SequentialElection(crashingZooKeeper, 2, 1.0, "crashing").waitForResult(); //alone, so it wins
+        crashingZooKeeper.close();
+
+        SequentialElection election = new SequentialElection(zooKeepers.get(0), 2, 1.0, "candidate-0");
+        assertTrue(election.waitForResult());
+    }
+}
@@ -0,0 +1,141 @@
+package leaderelection;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestZKConnection {
+    private static final int SESSION_TIMEOUT = 4000;
+    private static final int NUM_CANDIDATES = 3;
+    private static final long TIMEOUT_MILLISECONDS = 60_000;
+
+    private EmbeddedZooKeeper embeddedZooKeeper;
+
+    @BeforeEach
+    void init() throws Exception {
+        embeddedZooKeeper = new EmbeddedZooKeeper();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        embeddedZooKeeper.close();
+    }
+
+    @Test
+    void testReconnectReplacesExpiredSession() throws Exception {
+        ZKConnection zkConnection = new ZKConnection(SESSION_TIMEOUT, 10, 100);
+        ZooKeeper expired = zkConnection.connect(embeddedZooKeeper.getConnectString());
+        expired.create("/ephemeral", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+        expireSession(expired);
+
+        ZooKeeper replacement = zkConnection.reconnect(expired);
+        assertNotEquals(expired.getSessionId(), replacement.getSessionId());
+        assertSame(replacement, zkConnection.getZooKeeper());
+        assertNull(replacement.exists("/ephemeral", false));
+        assertSame(replacement, zkConnection.reconnect(expired)); //already replaced by another caller
+        zkConnection.close();
+    }
+
+    @Test
+    void testConnectionLossKeepsSession() throws Exception {
+        ZKConnection zkConnection = new ZKConnection(SESSION_TIMEOUT, 10, 100);
+        ZooKeeper session = zkConnection.connect(embeddedZooKeeper.getConnectString());
+        session.create("/ephemeral", new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+        Candidate candidate = new Candidate(zkConnection, 1, new CandidateIdentity("candidate-0", "node-0", () -> 0.1));
+
+        embeddedZooKeeper.dropConnections();
+        candidate.recoverSession(new KeeperException.ConnectionLossException());
+
+        assertSame(session, zkConnection.getZooKeeper());
+        assertTrue(session.getState().isConnected());
+        assertNotNull(session.exists("/ephemeral", false));
+        assertTrue(candidate.runElection(0.0));
+        zkConnection.close();
+    }
+
+    @Test
+    void testCandidateKeepsParticipatingAfterSessionExpiry() throws Exception {
+        List<ZKConnection> connections = new ArrayList<>();
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            ZKConnection zkConnection = new ZKConnection(SESSION_TIMEOUT, 10, 100);
+            zkConnection.connect(embeddedZooKeeper.getConnectString());
+            double load = 0.1 * (i + 1); //candidate-0 wins every election it takes part in
+            connections.add(zkConnection);
+            candidates.add(new Candidate(zkConnection, NUM_CANDIDATES,
+                    new CandidateIdentity("candidate-" + i, "node-" + i, () -> load)));
+        }
+        List<String> leaders = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_CANDIDATES);
+        for (int i = 0; i < NUM_CANDIDATES; i++) {
+            Candidate candidate = candidates.get(i);
+            String hostName = "candidate-" + i;
+            executor.submit(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (candidate.runElection(0.0)) {
+                        synchronized (leaders) {
+                            leaders.add(hostName);
+                            leaders.notifyAll();
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        ZooKeeper expired = connections.get(0).getZooKeeper();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLISECONDS;
+        int leadersBeforeExpiry;
+        synchronized (leaders) {
+            while (leaders.size() < 2 && System.currentTimeMillis() < deadline) {
+                leaders.wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            leadersBeforeExpiry = leaders.size();
+        }
+        assertEquals(2, leadersBeforeExpiry);
+        expireSession(expired);
+
+        boolean reelected;
+        synchronized (leaders) {
+            while (!leaders.subList(leadersBeforeExpiry, leaders.size()).contains("candidate-0")
+                    && System.currentTimeMillis() < deadline) {
+                leaders.wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            reelected = leaders.subList(leadersBeforeExpiry, leaders.size()).contains("candidate-0");
+        }
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        for (ZKConnection zkConnection : connections) {
+            zkConnection.close();
+        }
+
+        assertTrue(reelected);
+        assertNotEquals(expired.getSessionId(), connections.get(0).getZooKeeper().getSessionId());
+    }
+
+    /**
+     * Expires a session by connecting to it with a second client and closing that client.
+     */
+    private void expireSession(ZooKeeper zooKeeper) throws Exception {
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper clone = new ZooKeeper(embeddedZooKeeper.getConnectString(), SESSION_TIMEOUT, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        }, zooKeeper.getSessionId(), zooKeeper.getSessionPasswd());
+        assertTrue(connected.await(SESSION_TIMEOUT, TimeUnit.MILLISECONDS));
+        clone.close();
+    }
+}
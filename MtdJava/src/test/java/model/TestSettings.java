@@ -18,11 +18,14 @@
 
 package model;
 
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import io.kubernetes.client.openapi.Configuration;
 import io.kubernetes.client.util.Config;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -72,6 +75,37 @@ public class TestSettings {
         assertEquals("Test.yaml", settings.getServiceFileName());
     }
 
+    @Test
+    void testReadDeploymentGroups() throws IOException {
+        String yaml = "deploymentGroups:\n"
+                + "  - name: \"web\"\n"
+                + "    labelKey: \"mtd/web\"\n"
+                + "    deploymentFileNames: [\"Web1.yaml\", \"Web2.yaml\"]\n"
+                + "  - name: \"db\"\n"
+                + "    deploymentFileNames: [\"Db.yaml\"]\n";
+        Settings settings = new YAMLMapper().readValue(yaml, Settings.class);
+
+        List<DeploymentGroup> groups = settings.getDeploymentGroups();
+        assertEquals(2, groups.size());
+        assertEquals("web", groups.get(0).getName());
+        assertEquals("mtd/web", groups.get(0).getLabelKey());
+        assertEquals(List.of("Web1.yaml", "Web2.yaml"), groups.get(0).getDeploymentFileNames());
+        assertEquals("mtd/node", groups.get(1).getLabelKey());
+        assertTrue(new Settings().getDeploymentGroups().isEmpty());
+    }
+
+    @Test
+    void testReadScoringWeights() throws IOException {
+        String yaml = "scoringWeights:\n"
+                + "  cpu: 0.5\n"
+                + "  pods: 0.25\n"
+                + "  apiLatency: 0.25\n";
+        Settings settings = new YAMLMapper().readValue(yaml, Settings.class);
+
+        assertEquals(Map.of("cpu", 0.5, "pods", 0.25, "apiLatency", 0.25), settings.getScoringWeights());
+        assertEquals(Map.of("cpu", 1.0), new Settings().getScoringWeights());
+    }
+
     /*
     @Test
     void testSetAndGetDeploymentFileName() {
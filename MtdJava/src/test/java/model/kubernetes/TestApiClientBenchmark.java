@@ -0,0 +1,180 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import com.sun.net.httpserver.HttpServer;
+import io.kubernetes.client.openapi.ApiCallback;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Node;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing an API client with the default HTTP settings to a client of the ApiClientFactory, reading nodes
+ * from a local stand-in API server with a fixed response latency. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class TestApiClientBenchmark {
+    private static final int[] CONCURRENCY = {1, 8, 32};
+    private static final int REQUESTS_PER_CALLER = 100;
+    private static final long SERVER_LATENCY_MILLIS = 5;
+    private static final byte[] NODE_JSON = "{\"apiVersion\":\"v1\",\"kind\":\"Node\",\"metadata\":{\"name\":\"worker-1\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void benchmarkDefaultVersusTunedClient() throws Exception {
+        Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/v1/nodes/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            try {
+                Thread.sleep(SERVER_LATENCY_MILLIS);
+            } catch (InterruptedException ignored) {
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, NODE_JSON.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(NODE_JSON);
+            }
+        });
+        server.start();
+        String basePath = "http://localhost:" + server.getAddress().getPort();
+        System.out.println("client, mode, callers, requests/s, p50 ms, p99 ms, connections");
+        try {
+            for (int callers : CONCURRENCY) {
+                for (boolean async : new boolean[]{false, true}) {
+                    ApiClientFactory apiClientFactory = new ApiClientFactory();
+                    apiClientFactory.setPoolSize(32);
+                    Map<String, ApiClient> clients = Map.of(
+                            "default", new ApiClient().setBasePath(basePath),
+                            "tuned", apiClientFactory.configure(new ApiClient().setBasePath(basePath), false));
+                    for (String name : List.of("default", "tuned")) {
+                        clientPorts.clear();
+                        String result = async ? runAsync(clients.get(name), callers) : runSync(clients.get(name), callers);
+                        System.out.printf("%s, %s, %d, %s, %d%n", name, async ? "async" : "sync", callers, result,
+                                clientPorts.size());
+                    }
+                }
+            }
+        } finally {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+
+    /**
+     * Reads nodes with blocking calls from the given number of threads
+     */
+    private String runSync(ApiClient apiClient, int callers) throws InterruptedException {
+        CoreV1Api api = new CoreV1Api(apiClient);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        long start = System.nanoTime();
+        for (int i = 0; i < callers; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < REQUESTS_PER_CALLER; j++) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        api.readNode("worker-1", null);
+                    } catch (ApiException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    latencies.add(System.nanoTime() - requestStart);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+        return summarize(latencies, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads nodes with asynchronous calls, keeping the given number of calls in flight
+     */
+    private String runAsync(ApiClient apiClient, int callers) throws Exception {
+        CoreV1Api api = new CoreV1Api(apiClient);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        for (int j = 0; j < REQUESTS_PER_CALLER; j++) {
+            CountDownLatch done = new CountDownLatch(callers);
+            for (int i = 0; i < callers; i++) {
+                long requestStart = System.nanoTime();
+                api.readNodeAsync("worker-1", null, new LatencyCallback(latencies, requestStart, done));
+            }
+            done.await();
+        }
+        return summarize(latencies, System.nanoTime() - start);
+    }
+
+    private static String summarize(List<Long> latencies, long elapsedNanos) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double p50 = sorted.get(sorted.size() / 2) / 1e6;
+        double p99 = sorted.get((int) (sorted.size() * 0.99)) / 1e6;
+        return String.format("%.0f, %.2f, %.2f", sorted.size() / (elapsedNanos / 1e9), p50, p99);
+    }
+
+    private static class LatencyCallback implements ApiCallback<V1Node> {
+        private final List<Long> latencies;
+        private final long requestStart;
+        private final CountDownLatch done;
+
+        LatencyCallback(List<Long> latencies, long requestStart, CountDownLatch done) {
+            this.latencies = latencies;
+            this.requestStart = requestStart;
+            this.done = done;
+        }
+
+        @Override
+        public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+            done.countDown();
+        }
+
+        @Override
+        public void onSuccess(V1Node result, int statusCode, Map<String, List<String>> responseHeaders) {
+            latencies.add(System.nanoTime() - requestStart);
+            done.countDown();
+        }
+
+        @Override
+        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+        }
+
+        @Override
+        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+        }
+    }
+}
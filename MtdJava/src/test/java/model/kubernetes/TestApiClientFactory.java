@@ -0,0 +1,89 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import com.sun.net.httpserver.HttpServer;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestApiClientFactory {
+
+    @Test
+    void testRequestClientSettings() {
+        ApiClientFactory apiClientFactory = new ApiClientFactory();
+        apiClientFactory.setPoolSize(32);
+        apiClientFactory.setReadTimeoutMillis(2_000);
+        apiClientFactory.setCallTimeoutMillis(5_000);
+        apiClientFactory.setHttp2Enabled(false);
+        OkHttpClient httpClient = apiClientFactory.configure(new ApiClient(), false).getHttpClient();
+
+        assertEquals(2_000, httpClient.readTimeoutMillis());
+        assertEquals(5_000, httpClient.callTimeoutMillis());
+        assertEquals(32, httpClient.dispatcher().getMaxRequestsPerHost());
+        assertEquals(List.of(Protocol.HTTP_1_1), httpClient.protocols());
+    }
+
+    @Test
+    void testWatchClientHasNoCallTimeout() {
+        ApiClientFactory apiClientFactory = new ApiClientFactory();
+        apiClientFactory.setWatchTimeoutMillis(120_000);
+        OkHttpClient httpClient = apiClientFactory.configure(new ApiClient(), true).getHttpClient();
+
+        assertEquals(120_000, httpClient.readTimeoutMillis());
+        assertEquals(0, httpClient.callTimeoutMillis());
+        assertTrue(httpClient.protocols().contains(Protocol.HTTP_2));
+    }
+
+    @Test
+    void testCallTimeoutBoundsStalledRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                release.await(); //never responds while the client waits
+            } catch (InterruptedException ignored) {
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApiClientFactory apiClientFactory = new ApiClientFactory();
+            apiClientFactory.setCallTimeoutMillis(300);
+            ApiClient apiClient = apiClientFactory.configure(
+                    new ApiClient().setBasePath("http://localhost:" + server.getAddress().getPort()), false);
+
+            long start = System.currentTimeMillis();
+            assertThrows(ApiException.class, () -> new CoreV1Api(apiClient).readNode("worker-1", null));
+            assertTrue(System.currentTimeMillis() - start < 5_000);
+        } finally {
+            release.countDown();
+            server.stop(0);
+        }
+    }
+}
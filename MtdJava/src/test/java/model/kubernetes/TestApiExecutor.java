@@ -0,0 +1,83 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.openapi.models.V1Node;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import model.kubernetes.exception.NodeLabelException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestApiExecutor {
+
+    @Test
+    void testCheckedExceptionCompletesFuture() {
+        CompletableFuture<String> future = ApiExecutor.supplyAsync(() -> {
+            throw new NodeLabelException("conflict");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof NodeLabelException);
+    }
+
+    @Test
+    void testAsyncLabelsRunInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CompletableFuture<Void> first = blockingNode("worker-1", bothStarted).addLabelAsync("mtd/node", "active");
+        CompletableFuture<Void> second = blockingNode("worker-2", bothStarted).deleteLabelAsync("mtd/node");
+
+        // Each label change only returns once both have started, so they finish only if they run at the same time
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a node whose label changes wait until the given number of label changes started
+     */
+    private static INode blockingNode(String name, CountDownLatch started) {
+        return new Node(new V1Node().metadata(new V1ObjectMeta().name(name).labels(Map.of()))) {
+            @Override
+            public void addLabel(String key, String value) throws NodeLabelException {
+                awaitOthers();
+            }
+
+            @Override
+            public void deleteLabel(String key) throws NodeLabelException {
+                awaitOthers();
+            }
+
+            private void awaitOthers() throws NodeLabelException {
+                started.countDown();
+                try {
+                    if (!started.await(5, TimeUnit.SECONDS)) {
+                        throw new NodeLabelException("Label changes did not run in parallel");
+                    }
+                } catch (InterruptedException e) {
+                    throw new NodeLabelException(e.getMessage());
+                }
+            }
+        };
+    }
+}
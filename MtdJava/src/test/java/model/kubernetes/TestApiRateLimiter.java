@@ -0,0 +1,97 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import model.kubernetes.ApiRateLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestApiRateLimiter {
+
+    @Test
+    void testClassify() {
+        assertEquals(Priority.HIGH, ApiRateLimiter.classify("PATCH", "/api/v1/nodes/worker-1"));
+        assertEquals(Priority.HIGH, ApiRateLimiter.classify("DELETE", "/apis/apps/v1/namespaces/default/deployments/web"));
+        assertEquals(Priority.MEDIUM, ApiRateLimiter.classify("GET", "/api/v1/namespaces/default/pods"));
+        assertEquals(Priority.MEDIUM, ApiRateLimiter.classify("GET", "/apis/discovery.k8s.io/v1/namespaces/default/endpointslices"));
+        assertEquals(Priority.LOW, ApiRateLimiter.classify("GET", "/apis/metrics.k8s.io/v1beta1/nodes"));
+        assertEquals(Priority.LOW, ApiRateLimiter.classify("GET", "/apis/apps/v1"));
+        assertEquals(Priority.LOW, ApiRateLimiter.classify("GET", "/api/v1"));
+        assertEquals(Priority.LOW, ApiRateLimiter.classify("GET", "/version"));
+    }
+
+    @Test
+    void testBurstThenRate() throws InterruptedException {
+        ApiRateLimiter rateLimiter = new ApiRateLimiter(20, 2);
+        assertTrue(rateLimiter.acquire(Priority.MEDIUM) < 10_000_000);
+        assertTrue(rateLimiter.acquire(Priority.MEDIUM) < 10_000_000);
+
+        long waitedNanos = rateLimiter.acquire(Priority.MEDIUM);
+        assertTrue(waitedNanos > 30_000_000, "waited " + waitedNanos + " ns for the third token");
+        assertEquals(3, rateLimiter.getQueueingDelay(Priority.MEDIUM).getCount());
+    }
+
+    @Test
+    void testHigherPriorityIsServedFirst() throws InterruptedException {
+        ApiRateLimiter rateLimiter = new ApiRateLimiter(10, 1);
+        rateLimiter.acquire(Priority.HIGH); //empties the bucket
+        List<Priority> served = Collections.synchronizedList(new ArrayList<>());
+        Thread low = acquireInBackground(rateLimiter, Priority.LOW, served);
+        Thread.sleep(30); //the low priority request is queued first
+        Thread high = acquireInBackground(rateLimiter, Priority.HIGH, served);
+        low.join(2_000);
+        high.join(2_000);
+
+        assertEquals(List.of(Priority.HIGH, Priority.LOW), served);
+        assertEquals(1, rateLimiter.export("host").stream().filter(line -> line.contains(", LOW, 1,")).count());
+    }
+
+    @Test
+    void testInterruptedWaiterLeavesQueue() throws InterruptedException {
+        ApiRateLimiter rateLimiter = new ApiRateLimiter(5, 1);
+        rateLimiter.acquire(Priority.HIGH);
+        List<Priority> served = Collections.synchronizedList(new ArrayList<>());
+        Thread interrupted = acquireInBackground(rateLimiter, Priority.HIGH, served);
+        Thread.sleep(30);
+        interrupted.interrupt();
+        interrupted.join(2_000);
+
+        // The low priority request is not blocked by the interrupted high priority request
+        Thread low = acquireInBackground(rateLimiter, Priority.LOW, served);
+        low.join(2_000);
+        assertEquals(List.of(Priority.LOW), served);
+    }
+
+    private static Thread acquireInBackground(ApiRateLimiter rateLimiter, Priority priority, List<Priority> served) {
+        Thread thread = new Thread(() -> {
+            try {
+                rateLimiter.acquire(priority);
+                served.add(priority);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.openapi.models.*;
+import model.kubernetes.exception.DeploymentNotFoundException;
+import model.kubernetes.exception.NodeNotFoundException;
+import model.kubernetes.exception.PodNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestClusterCache {
+    private Cache<V1Node> nodes;
+    private Cache<V1Pod> pods;
+    private Cache<V1Deployment> deployments;
+    private ClusterCache cache;
+
+    @BeforeEach
+    void init() {
+        nodes = new Cache<>();
+        pods = new Cache<>();
+        deployments = new Cache<>();
+        cache = new ClusterCache(nodes, pods, deployments, "default", null);
+        nodes.add(node("control", Map.of("node-role.kubernetes.io/control-plane", "")));
+        nodes.add(node("worker-1", Map.of()));
+        nodes.add(node("worker-2", Map.of("mtd/node", "active")));
+        pods.add(pod("web-5d9c7-abcde", "worker-1", "web", "web-5d9c7", "5d9c7"));
+        pods.add(pod("web-5d9c7-fghij", "worker-2", "web", "web-5d9c7", "5d9c7"));
+        pods.add(pod("db-7f8e6-klmno", "worker-2", "db", "db-7f8e6", "7f8e6"));
+        deployments.add(deployment("web", "web"));
+        deployments.add(deployment("db", "db"));
+        deployments.add(ownedDeployment("web-2f1c", "web"));
+        deployments.add(ownedDeployment("web-9a3b", "web"));
+        ClusterCache.setShared(cache);
+    }
+
+    @AfterEach
+    void reset() {
+        cache.close();
+    }
+
+    @Test
+    void testIndexes() {
+        assertEquals(List.of("db-7f8e6-klmno", "web-5d9c7-fghij"), names(cache.getPodsOnNode("worker-2")));
+        assertEquals(List.of("web-5d9c7-abcde", "web-5d9c7-fghij"), names(cache.getPodsByApp("web")));
+        assertEquals(List.of("db-7f8e6-klmno"), names(cache.getPodsByOwner("db-7f8e6")));
+        assertEquals(List.of("db-7f8e6-klmno"), names(cache.getPodsByOwner("db"))); //owner through its replica set
+        assertEquals(3, cache.getDeploymentsByApp("web").size());
+        assertEquals(2, cache.getDeploymentsByOwner("web").size());
+        assertNull(cache.getNode("worker-3"));
+    }
+
+    @Test
+    void testModelReadsFromSharedCache() throws NodeNotFoundException, PodNotFoundException,
+            DeploymentNotFoundException {
+        List<String> workerNames = NodeTools.getWorkerNodes().stream().map(INode::getName).sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("worker-1", "worker-2"), workerNames);
+        assertEquals("active", new Node("worker-2").getLabels().get("mtd/node"));
+        assertEquals(2, new Node("worker-2").getPods().size());
+        assertEquals("worker-1", new Pod("web-5d9c7-abcde").getNodeName());
+        assertEquals(2, new Deployment("web", "default").getPods().size());
+        assertThrows(NodeNotFoundException.class, () -> new Node("worker-3"));
+        assertThrows(DeploymentNotFoundException.class, () -> new Deployment("cache", "default"));
+    }
+
+    @Test
+    void testRelatedDeploymentsByOwnerLabel() throws Exception {
+        IDeployment deployment = new Deployment(cache.getDeployment("web-2f1c"));
+        List<String> relatedNames = deployment.getRelatedDeployments("default").stream().map(IDeployment::getName)
+                .sorted().collect(Collectors.toList());
+
+        assertEquals(List.of("web-2f1c", "web-9a3b"), relatedNames); //the unlabeled "web" was not applied by MTD
+        assertTrue(new Deployment(cache.getDeployment("db")).getRelatedDeployments("default").isEmpty());
+    }
+
+    @Test
+    void testRelatedDeploymentsIncludeLegacyDeployments() throws Exception {
+        deployments.add(ownedDeployment("api-4d2e", "api"));
+        deployments.add(deployment("api3", "api")); //applied with a counter before the owner label existed
+        deployments.add(deployment("api-0f8c2b6e-91d4-4a7b-b1c3-5e6f7a8b9c0d", "api")); //applied with a UUID
+        deployments.add(deployment("api-gateway", "api-gateway"));
+        IDeployment deployment = new Deployment(cache.getDeployment("api-4d2e"));
+        List<String> relatedNames = deployment.getRelatedDeployments("default").stream().map(IDeployment::getName)
+                .sorted().collect(Collectors.toList());
+
+        assertEquals(List.of("api-0f8c2b6e-91d4-4a7b-b1c3-5e6f7a8b9c0d", "api-4d2e", "api3"), relatedNames);
+    }
+
+    @Test
+    void testWatchEventsUpdateIndexes() throws NodeNotFoundException, PodNotFoundException {
+        V1Pod movedPod = pod("web-5d9c7-abcde", "worker-2", "web", "web-5d9c7", "5d9c7");
+        pods.update(movedPod);
+        pods.delete(pod("db-7f8e6-klmno", "worker-2", "db", "db-7f8e6", "7f8e6"));
+
+        List<String> podNames = new Node("worker-2").getPods().stream().map(IPod::getName).sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("web-5d9c7-abcde", "web-5d9c7-fghij"), podNames);
+        assertTrue(new Node("worker-1").getPods().isEmpty());
+    }
+
+    @Test
+    void testOtherNamespacesAreNotCached() {
+        assertNull(ClusterCache.getShared("kube-system"));
+        cache.update(deployment("other", "other").metadata(new V1ObjectMeta().name("other").namespace("kube-system")));
+        assertNull(cache.getDeployment("other"));
+    }
+
+    @Test
+    void testStaleWriteBackIsIgnored() {
+        deployments.update(versioned(deployment("web", "web"), "7"));
+        cache.update(versioned(ownedDeployment("web", "web"), "5")); //response overtaken by a watch event
+
+        assertNull(cache.getDeployment("web").getMetadata().getLabels().get(Deployment.OWNER_LABEL));
+        cache.update(versioned(ownedDeployment("web", "web"), "8"));
+        assertEquals("web", cache.getDeployment("web").getMetadata().getLabels().get(Deployment.OWNER_LABEL));
+    }
+
+    @Test
+    void testDeletedObjectIsNotWrittenBack() {
+        V1Deployment deleted = versioned(ownedDeployment("web-9a3b", "web"), "12");
+        deployments.delete(deleted); //deleted by the informer after the patch
+        cache.<V1Deployment>deletionRecorder().onDelete(deleted, false);
+        cache.update(versioned(ownedDeployment("web-9a3b", "web"), "11"));
+        assertNull(cache.getDeployment("web-9a3b"));
+
+        cache.update(versioned(ownedDeployment("web-9a3b", "web"), "15")); //applied again under the same name
+        assertNotNull(cache.getDeployment("web-9a3b"));
+        cache.update(versioned(ownedDeployment("web-5e7d", "web"), "3")); //nothing cached or deleted yet
+        assertNotNull(cache.getDeployment("web-5e7d"));
+    }
+
+    @Test
+    void testCloseUninstallsSharedCache() {
+        cache.close();
+        assertNull(ClusterCache.getShared());
+    }
+
+    private static List<String> names(List<V1Pod> pods) {
+        return pods.stream().map(pod -> pod.getMetadata().getName()).sorted().collect(Collectors.toList());
+    }
+
+    private static V1Node node(String name, Map<String, String> labels) {
+        return new V1Node().metadata(new V1ObjectMeta().name(name).labels(labels));
+    }
+
+    private static V1Pod pod(String name, String nodeName, String app, String replicaSet, String hash) {
+        return new V1Pod()
+                .metadata(new V1ObjectMeta().name(name).namespace("default")
+                        .labels(Map.of("app", app, "pod-template-hash", hash))
+                        .ownerReferences(List.of(new V1OwnerReference().kind("ReplicaSet").name(replicaSet))))
+                .spec(new V1PodSpec().nodeName(nodeName));
+    }
+
+    private static V1Deployment deployment(String name, String app) {
+        return new V1Deployment().metadata(new V1ObjectMeta().name(name).namespace("default")
+                .labels(Map.of("app", app)));
+    }
+
+    private static V1Deployment versioned(V1Deployment deployment, String resourceVersion) {
+        deployment.getMetadata().setResourceVersion(resourceVersion);
+        return deployment;
+    }
+
+    private static V1Deployment ownedDeployment(String name, String owner) {
+        return new V1Deployment().metadata(new V1ObjectMeta().name(name).namespace("default")
+                .labels(Map.of("app", owner, Deployment.OWNER_LABEL, owner)));
+    }
+}
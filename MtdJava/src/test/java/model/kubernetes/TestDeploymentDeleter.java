@@ -0,0 +1,103 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.openapi.models.V1Deployment;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import model.kubernetes.exception.DeploymentDeleteException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDeploymentDeleter {
+
+    @Test
+    void testDeletesInParallel() throws Exception {
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        List<IDeployment> deployments = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            deployments.add(new SlowDeployment("web-" + i, inProgress, maxInProgress));
+        }
+
+        try (DeploymentDeleter deleter = new DeploymentDeleter(4, 0)) {
+            long start = System.currentTimeMillis();
+            List<DeploymentDeleter.Outcome> outcomes = deleter.deleteAll(deployments).get();
+
+            assertTrue(System.currentTimeMillis() - start < 8 * SlowDeployment.DELETE_MILLIS);
+            assertTrue(maxInProgress.get() > 1 && maxInProgress.get() <= 4);
+            assertEquals(8, outcomes.size());
+            assertEquals("web-0", outcomes.get(0).getDeploymentName());
+            assertTrue(outcomes.stream().allMatch(DeploymentDeleter.Outcome::isDeleted));
+        }
+    }
+
+    @Test
+    void testFailureDoesNotStopOtherDeletions() throws Exception {
+        List<IDeployment> deployments = List.of(
+                new SlowDeployment("web-0", new AtomicInteger(), new AtomicInteger()),
+                new SlowDeployment("forbidden", new AtomicInteger(), new AtomicInteger()),
+                new SlowDeployment("web-2", new AtomicInteger(), new AtomicInteger()));
+
+        try (DeploymentDeleter deleter = new DeploymentDeleter(1, -1)) {
+            List<DeploymentDeleter.Outcome> outcomes = deleter.deleteAll(deployments).get();
+
+            assertTrue(outcomes.get(0).isDeleted());
+            assertFalse(outcomes.get(1).isDeleted());
+            assertEquals("forbidden", outcomes.get(1).getError().getMessage());
+            assertTrue(outcomes.get(2).isDeleted());
+        }
+    }
+
+    @Test
+    void testInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new DeploymentDeleter(0, -1));
+    }
+
+    private static class SlowDeployment extends Deployment {
+        static final long DELETE_MILLIS = 100;
+        private final AtomicInteger inProgress;
+        private final AtomicInteger maxInProgress;
+
+        SlowDeployment(String name, AtomicInteger inProgress, AtomicInteger maxInProgress) {
+            super(new V1Deployment().metadata(new V1ObjectMeta().name(name).namespace("default")));
+            this.inProgress = inProgress;
+            this.maxInProgress = maxInProgress;
+        }
+
+        @Override
+        public void deleteInBackground(int gracePeriodSeconds) throws DeploymentDeleteException {
+            if (getName().equals("forbidden")) {
+                throw new DeploymentDeleteException("forbidden");
+            }
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(DELETE_MILLIS);
+            } catch (InterruptedException e) {
+                throw new DeploymentDeleteException(e.getMessage());
+            } finally {
+                inProgress.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.*;
+import model.kubernetes.exception.PodNotReadyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEndpointReadinessGate {
+
+    @Test
+    void testReadyEndpoint() {
+        V1EndpointSlice slice = slice(endpoint("web-old", true), endpoint("web-new", true));
+        assertTrue(EndpointReadinessGate.isReadyEndpoint(slice, "web-new"));
+    }
+
+    @Test
+    void testEndpointNotReadyYet() {
+        V1EndpointSlice slice = slice(endpoint("web-old", true), endpoint("web-new", false));
+        assertFalse(EndpointReadinessGate.isReadyEndpoint(slice, "web-new"));
+        assertFalse(EndpointReadinessGate.isReadyEndpoint(slice(endpoint("web-old", true)), "web-new"));
+        assertFalse(EndpointReadinessGate.isReadyEndpoint(new V1EndpointSlice(), "web-new"));
+    }
+
+    @Test
+    void testUnknownReadinessCountsAsReady() {
+        V1Endpoint endpoint = endpoint("web-new", true).conditions(new V1EndpointConditions());
+        assertTrue(EndpointReadinessGate.isReadyEndpoint(slice(endpoint), "web-new"));
+    }
+
+    @Test
+    void testDeadline() {
+        ApiClient unreachable = new ApiClient().setBasePath("http://localhost:1");
+        CompletableFuture<Void> readyEndpoint = new EndpointReadinessGate(unreachable, "default")
+                .awaitReadyEndpoint("web", "web-new", 300);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> readyEndpoint.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PodNotReadyException.class, e.getCause());
+    }
+
+    private static V1EndpointSlice slice(V1Endpoint... endpoints) {
+        return new V1EndpointSlice().addressType("IPv4").endpoints(List.of(endpoints));
+    }
+
+    private static V1Endpoint endpoint(String podName, boolean ready) {
+        return new V1Endpoint()
+                .addresses(List.of("10.0.0.1"))
+                .conditions(new V1EndpointConditions().ready(ready))
+                .targetRef(new V1ObjectReference().kind("Pod").name(podName));
+    }
+}
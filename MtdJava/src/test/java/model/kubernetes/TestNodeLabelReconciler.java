@@ -0,0 +1,135 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1Deployment;
+import io.kubernetes.client.openapi.models.V1Node;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import model.kubernetes.exception.NodeLabelException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNodeLabelReconciler {
+    private static final String LABEL_KEY = "mtd/node";
+
+    private Cache<V1Node> nodes;
+    private ClusterCache cache;
+    private Map<String, String> patches;
+
+    @BeforeEach
+    void init() {
+        nodes = new Cache<>();
+        cache = new ClusterCache(nodes, new Cache<V1Pod>(), new Cache<V1Deployment>(), "default", null);
+        nodes.add(node("worker-1", Map.of()));
+        nodes.add(node("worker-2", Map.of(LABEL_KEY, "active")));
+        nodes.add(node("worker-3", Map.of(LABEL_KEY, "active")));
+        nodes.add(node("worker-4", Map.of(LABEL_KEY, "old")));
+        ClusterCache.setShared(cache);
+        patches = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    void reset() {
+        cache.close();
+    }
+
+    @Test
+    void testLabelledNodesFromCache() throws Exception {
+        List<String> labelledNames = reconciler(Set.of()).getLabelledNodes().stream().map(INode::getName).sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("worker-2", "worker-3", "worker-4"), labelledNames);
+    }
+
+    @Test
+    void testOnlyChangedNodesArePatched() throws Exception {
+        List<INode> unlabelled = reconciler(Set.of()).reconcile(Set.of("worker-1", "worker-2", "worker-4"), "active");
+
+        assertEquals(List.of("worker-3"), unlabelled.stream().map(INode::getName).collect(Collectors.toList()));
+        // worker-2 already carries the label, so it is not patched
+        Map<String, String> expected = new HashMap<>();
+        expected.put("worker-1", "active");
+        expected.put("worker-3", "<removed>");
+        expected.put("worker-4", "active");
+        assertEquals(expected, patches);
+        assertEquals("active", cache.getNode("worker-4").getMetadata().getLabels().get(LABEL_KEY));
+        assertFalse(cache.getNode("worker-3").getMetadata().getLabels().containsKey(LABEL_KEY));
+    }
+
+    @Test
+    void testReconciledLabelIsNoOp() throws Exception {
+        NodeLabelReconciler reconciler = reconciler(Set.of());
+        reconciler.reconcile(Set.of("worker-1"), "active");
+        patches.clear();
+
+        reconciler.reconcile(Set.of("worker-1"), "active");
+        assertTrue(patches.isEmpty());
+    }
+
+    @Test
+    void testFailedPatchDoesNotStopOthers() {
+        NodeLabelException e = assertThrows(NodeLabelException.class,
+                () -> reconciler(Set.of("worker-2")).reconcile(Set.of("worker-1"), "active"));
+
+        assertTrue(e.getMessage().startsWith("worker-2: "));
+        assertEquals(Set.of("worker-1", "worker-3", "worker-4"), patches.keySet());
+    }
+
+    /**
+     * Creates a reconciler recording its patches and applying them to the cached nodes
+     */
+    private NodeLabelReconciler reconciler(Set<String> failingNodeNames) {
+        return new NodeLabelReconciler(LABEL_KEY, (nodeName, value) -> {
+            if (failingNodeNames.contains(nodeName)) {
+                throw new ApiException(409, "Conflict");
+            }
+            patches.put(nodeName, value == null ? "<removed>" : value);
+            V1ObjectMeta metadata = cache.getNode(nodeName).getMetadata();
+            Map<String, String> labels = new HashMap<>(metadata.getLabels());
+            if (value == null) {
+                labels.remove(LABEL_KEY);
+            } else {
+                labels.put(LABEL_KEY, value);
+            }
+            // Like the API server, every patch increases the resource version
+            return node(nodeName, labels, Long.parseLong(metadata.getResourceVersion()) + 1);
+        }, 2);
+    }
+
+    private static V1Node node(String name, Map<String, String> labels) {
+        return node(name, labels, 1);
+    }
+
+    private static V1Node node(String name, Map<String, String> labels, long resourceVersion) {
+        return new V1Node().metadata(new V1ObjectMeta().name(name).labels(labels)
+                .resourceVersion(String.valueOf(resourceVersion)));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Moving Target Defense with Kubernetes
+ * Copyright (C) 2022  Philip Tibom and Max Buck
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package model.kubernetes;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.*;
+import model.kubernetes.exception.PodNotReadyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPodReadinessWaiter {
+
+    @Test
+    void testReadyPod() throws PodNotReadyException {
+        assertTrue(PodReadinessWaiter.checkReady(pod("Running", "True", null)));
+    }
+
+    @Test
+    void testRunningPodNotYetReady() throws PodNotReadyException {
+        assertFalse(PodReadinessWaiter.checkReady(pod("Running", "False", null)));
+        assertFalse(PodReadinessWaiter.checkReady(pod("Pending", "False", "ContainerCreating")));
+        assertFalse(PodReadinessWaiter.checkReady(new V1Pod().metadata(new V1ObjectMeta().name("new"))));
+    }
+
+    @Test
+    void testStuckContainerFailsFast() {
+        PodNotReadyException e = assertThrows(PodNotReadyException.class,
+                () -> PodReadinessWaiter.checkReady(pod("Pending", "False", "ImagePullBackOff")));
+        assertTrue(e.getMessage().contains("ImagePullBackOff"));
+        assertThrows(PodNotReadyException.class, () -> PodReadinessWaiter.checkReady(pod("Failed", "False", null)));
+    }
+
+    @Test
+    void testDeadline() {
+        ApiClient unreachable = new ApiClient().setBasePath("http://localhost:1");
+        CompletableFuture<IPod> readyPod = new PodReadinessWaiter(unreachable, "default")
+                .awaitReady("app=test", pod -> true, 300);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> readyPod.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PodNotReadyException.class, e.getCause());
+    }
+
+    private static V1Pod pod(String phase, String ready, String waitingReason) {
+        V1ContainerState state = waitingReason == null
+                ? new V1ContainerState().running(new V1ContainerStateRunning())
+                : new V1ContainerState().waiting(new V1ContainerStateWaiting().reason(waitingReason));
+        return new V1Pod()
+                .metadata(new V1ObjectMeta().name("web-5d9c7-abcde"))
+                .status(new V1PodStatus()
+                        .phase(phase)
+                        .conditions(List.of(new V1PodCondition().type("Ready").status(ready)))
+                        .containerStatuses(List.of(new V1ContainerStatus().name("web").state(state))));
+    }
+}